@@ -0,0 +1,89 @@
+package org.library.service;
+
+import org.library.dto.book.BookSuggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Autocomplete latency over a catalog of a million titles. Short prefixes match a large share of the
+// catalog, so they show whether a lookup stays bounded by the limit rather than by the number of matches.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookSuggestBenchmark {
+    private static final String[] WORDS = {
+            "the", "silent", "river", "shadow", "garden", "winter", "glass", "empire", "last", "night",
+            "house", "of", "stone", "secret", "history", "ocean", "fire", "small", "light", "journey",
+            "broken", "crown", "memory", "city", "island", "letters", "north", "song", "iron", "dream"
+    };
+    private static final int PREFIXES = 1024;
+
+    @Param({"1000000"})
+    private int titles;
+
+    @Param({"10000"})
+    private int authors;
+
+    @Param({"1", "3", "8"})
+    private int prefixLength;
+
+    @Param({"10"})
+    private int limit;
+
+    private BookSuggestIndex index;
+    private String[] prefixes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new BookSuggestIndex(null, null);
+
+        String[] titleTexts = new String[titles];
+        for (int i = 0; i < titles; i++) {
+            titleTexts[i] = phrase(random, 2 + random.nextInt(4)) + " " + i;
+            index.putTitle(i + 1, titleTexts[i]);
+        }
+        for (int i = 0; i < authors; i++) {
+            index.putAuthor(i + 1, phrase(random, 2) + " " + i);
+        }
+
+        // Prefixes are cut from real titles so every lookup has matches
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String title = titleTexts[random.nextInt(titles)];
+            prefixes[i] = title.substring(0, Math.min(prefixLength, title.length()));
+        }
+    }
+
+    @Benchmark
+    public List<BookSuggestion> suggest(PrefixCursor cursor) {
+        return index.suggest(cursor.next(prefixes), limit);
+    }
+
+    private static String phrase(Random random, int words) {
+        StringBuilder phrase = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            phrase.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+
+    @State(Scope.Thread)
+    public static class PrefixCursor {
+        private int position;
+
+        String next(String[] prefixes) {
+            position = (position + 1) & (PREFIXES - 1);
+            return prefixes[position];
+        }
+    }
+}
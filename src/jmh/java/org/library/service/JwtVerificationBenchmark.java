@@ -0,0 +1,74 @@
+package org.library.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Token verification per authenticated request: a full signature check and parse every time, as before
+// the claims cache, against JwtService serving repeat tokens from the cache. Requests cycle over a pool
+// of live tokens, one per active user.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "benchmark-secret-of-at-least-thirty-two-bytes";
+
+    @Param({"1000"})
+    private int activeUsers;
+
+    private JwtService jwtService;
+    private JwtParser parser;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 10_000L);
+        jwtService.init();
+
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        tokens = new String[activeUsers];
+        for (int i = 0; i < activeUsers; i++) {
+            tokens[i] = jwtService.generateToken((long) i, "user" + i + "@library.test", "USER");
+        }
+    }
+
+    @Benchmark
+    public Claims parsePerRequest(RequestCursor cursor) {
+        return parser.parseClaimsJws(cursor.next(tokens)).getBody();
+    }
+
+    @Benchmark
+    public Optional<Claims> cachedClaims(RequestCursor cursor) {
+        return jwtService.verifyToken(cursor.next(tokens));
+    }
+
+    @State(Scope.Thread)
+    public static class RequestCursor {
+        private int position;
+
+        String next(String[] tokens) {
+            position = position + 1 == tokens.length ? 0 : position + 1;
+            return tokens[position];
+        }
+    }
+}
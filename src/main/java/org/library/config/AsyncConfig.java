@@ -0,0 +1,20 @@
+package org.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Streaming responses such as exports run as async requests; the container default of 30 seconds
+// would cut off a large export halfway
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${library.async.request-timeout-ms:1800000}")
+    private long requestTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeoutMs);
+    }
+}
@@ -6,11 +6,14 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.library.dto.author.AuthorRequest;
 import org.library.dto.author.AuthorResponse;
+import org.library.entities.CatalogEntityType;
 import org.library.service.AuthorService;
+import org.library.service.CatalogETags;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,6 +23,7 @@ import java.util.List;
 @Tag(name = "Authors", description = "Endpoints for managing authors")
 public class AuthorController {
     private final AuthorService authorService;
+    private final CatalogETags catalogETags;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -31,14 +35,20 @@ public class AuthorController {
 
     @GetMapping("/{authorId}")
     @Operation(summary = "Get author by ID", description = "Retrieves an author by its ID")
-    public ResponseEntity<AuthorResponse> getAuthorById(@PathVariable Long authorId) {
+    public ResponseEntity<AuthorResponse> getAuthorById(@PathVariable Long authorId, WebRequest request) {
+        if (request.checkNotModified(catalogETags.entityTag(CatalogEntityType.AUTHOR, authorId))) {
+            return null;
+        }
         AuthorResponse authorResponse = authorService.findAuthorById(authorId);
         return ResponseEntity.ok(authorResponse);
     }
 
     @GetMapping
     @Operation(summary = "Get all authors", description = "Retrieves a list of all authors")
-    public ResponseEntity<List<AuthorResponse>> getAllAuthors() {
+    public ResponseEntity<List<AuthorResponse>> getAllAuthors(WebRequest request) {
+        if (request.checkNotModified(catalogETags.collectionTag(CatalogEntityType.AUTHOR))) {
+            return null;
+        }
         return ResponseEntity.ok(authorService.getAllAuthors());
     }
 }
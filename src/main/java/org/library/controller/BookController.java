@@ -4,14 +4,29 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.library.dto.book.BookImportResponse;
 import org.library.dto.book.BookRequest;
 import org.library.dto.book.BookResponse;
+import org.library.dto.book.BookSuggestion;
+import org.library.dto.book.RelatedBook;
+import org.library.dto.common.CursorPageResponse;
+import org.library.entities.CatalogEntityType;
+import org.library.service.AvailabilityFeed;
+import org.library.service.BookImportService;
 import org.library.service.BookService;
+import org.library.service.CatalogETags;
+import org.library.service.DataFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -20,6 +35,9 @@ import java.util.List;
 @Tag(name = "Books", description = "Endpoints for managing books")
 public class BookController {
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final AvailabilityFeed availabilityFeed;
+    private final CatalogETags catalogETags;
 
 
     @PostMapping
@@ -32,67 +50,152 @@ public class BookController {
     }
 
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Bulk import books", description = "Admin only - Imports books from a CSV or JSON lines body, creating missing authors and categories")
+    public ResponseEntity<BookImportResponse>importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImportService.importBooks(DataFormat.fromContentType(contentType), body));
+    }
+
     @GetMapping("/{bookId}")
     @Operation(summary = "Get book by ID", description = "Retrieves a book by its ID")
-    public ResponseEntity<BookResponse>findBookById(@PathVariable Long bookId) {
+    public ResponseEntity<BookResponse>findBookById(@PathVariable Long bookId, WebRequest request) {
+        // 304 straight from the in-memory version, before the cache or the database is asked
+        if (request.checkNotModified(catalogETags.entityTag(CatalogEntityType.BOOK, bookId))) {
+            return null;
+        }
         BookResponse bookResponse = bookService.findBookById(bookId);
         return ResponseEntity.ok(bookResponse);
     }
 
+    @GetMapping("/{bookId}/related")
+    @Operation(summary = "Get related books", description = "Retrieves the books most often borrowed by readers of this book")
+    public ResponseEntity<List<RelatedBook>>findRelatedBooks(
+            @PathVariable Long bookId,
+            @RequestParam (defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.findRelatedBooks(bookId, limit));
+    }
+
     @GetMapping("/title/{title}")
     @Operation(summary = "Get book by title", description = "Retrieves a book by its title")
-    public ResponseEntity<BookResponse>findBookByTitle(@PathVariable String title) {
+    public ResponseEntity<BookResponse>findBookByTitle(@PathVariable String title, WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
         BookResponse bookResponse = bookService.findBookByTitle(title);
         return ResponseEntity.ok(bookResponse);
     }
 
     @GetMapping("/author/{authorId}")
-    @Operation(summary = "Get books by author", description = "Retrieves books by a specific author")
-    public ResponseEntity<List<BookResponse>>findBooksByAuthor(@PathVariable Long authorId) {
-        return ResponseEntity.ok(bookService.findBooksByAuthor(authorId));
+    @Operation(summary = "Get books by author", description = "Retrieves a page of books by a specific author")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findBooksByAuthor(
+            @PathVariable Long authorId,
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findBooksByAuthor(authorId, cursor, size));
     }
 
     @GetMapping("/category/{categoryId}")
-    @Operation(summary = "Get books by category", description = "Retrieves books by a specific category")
-    public ResponseEntity<List<BookResponse>>findBooksByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(bookService.findBooksByCategory(categoryId));
+    @Operation(summary = "Get books by category", description = "Retrieves a page of books by a specific category")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findBooksByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findBooksByCategory(categoryId, cursor, size));
     }
 
     @GetMapping("/release-year/{releaseYear}")
-    @Operation(summary = "Get books by release year", description = "Retrieves books released in a specific year")
-    public ResponseEntity<List<BookResponse>>findBooksByReleaseYear(@PathVariable int releaseYear) {
-        return ResponseEntity.ok(bookService.findBooksByReleaseYear(releaseYear));
+    @Operation(summary = "Get books by release year", description = "Retrieves a page of books released in a specific year")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findBooksByReleaseYear(
+            @PathVariable int releaseYear,
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findBooksByReleaseYear(releaseYear, cursor, size));
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search books", description = "Searches for books based on multiple criteria")
-    public ResponseEntity<List<BookResponse>>searchBooks(
+    @Operation(summary = "Search books", description = "Searches for books based on multiple criteria, one page at a time")
+    public ResponseEntity<CursorPageResponse<BookResponse>>searchBooks(
             @RequestParam (required = false) String title,
             @RequestParam (required = false) String authorName,
             @RequestParam (required = false) String categoryName,
-            @RequestParam (required = false) Integer releaseYear) {
-
-        List<BookResponse> books = bookService.searchBooks(title, authorName, categoryName, releaseYear);
+            @RequestParam (required = false) Integer releaseYear,
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+
+        CursorPageResponse<BookResponse> books =
+                bookService.searchBooks(title, authorName, categoryName, releaseYear, cursor, size);
         return ResponseEntity.ok(books);
 
     }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest titles and authors", description = "Returns top completions for a title or author name prefix")
+    public ResponseEntity<List<BookSuggestion>>suggestBooks(
+            @RequestParam String prefix,
+            @RequestParam (defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggestBooks(prefix, limit));
+    }
+
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream availability changes", description = "Server-sent events with one delta per borrow, return, creation or deletion. Reconnect with Last-Event-ID to resume, a 'reset' event means the catalog has to be reloaded")
+    public SseEmitter streamAvailability(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return availabilityFeed.subscribe(lastEventId);
+    }
+
     @GetMapping("/borrowed")
-    @Operation(summary = "Get borrowed books", description = "Retrieves all borrowed books")
-    public ResponseEntity<List<BookResponse>>findBorrowedBooks() {
-        return ResponseEntity.ok(bookService.findBorrowedBooks());
+    @Operation(summary = "Get borrowed books", description = "Retrieves a page of borrowed books")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findBorrowedBooks(
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findBorrowedBooks(cursor, size));
     }
 
     @GetMapping("/available")
-    @Operation(summary = "Get available books", description = "Retrieves all available books")
-    public ResponseEntity<List<BookResponse>>findAvailableBooks() {
-        return ResponseEntity.ok(bookService.findAvailableBooks());
+    @Operation(summary = "Get available books", description = "Retrieves a page of available books")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findAvailableBooks(
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findAvailableBooks(cursor, size));
     }
 
     @GetMapping
-    @Operation(summary = "Get all books", description = "Retrieves all books in the library")
-    public ResponseEntity<List<BookResponse>>findAllBooks() {
-        return ResponseEntity.ok(bookService.findAllBooks());
+    @Operation(summary = "Get all books", description = "Retrieves a page of books in the library, use nextCursor to continue")
+    public ResponseEntity<CursorPageResponse<BookResponse>>findAllBooks(
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size,
+            WebRequest request) {
+        if (booksNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findAllBooks(cursor, size));
     }
 
 
@@ -114,4 +217,9 @@ public class BookController {
         return ResponseEntity.noContent().build();
     }
 
+    // Lists and title lookups share one tag that moves with every change to any book
+    private boolean booksNotModified(WebRequest request) {
+        return request.checkNotModified(catalogETags.collectionTag(CatalogEntityType.BOOK));
+    }
+
 }
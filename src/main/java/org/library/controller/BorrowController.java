@@ -5,8 +5,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.library.dto.borrow.BatchBorrowRequest;
+import org.library.dto.borrow.BatchReturnRequest;
 import org.library.dto.borrow.BorrowRequest;
 import org.library.dto.borrow.BorrowResponse;
+import org.library.dto.common.CursorPageResponse;
 import org.library.service.BorrowService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,12 +27,27 @@ public class BorrowController {
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Borrow a book", description = "User can borrow a book (max 5 books at a time)")
+    @Operation(summary = "Borrow a book", description = "User can borrow a book (up to the active borrow limit of their role, 5 by default)")
     public ResponseEntity<BorrowResponse> borrowBook(@Valid @RequestBody BorrowRequest borrowRequest) {
         BorrowResponse response = borrowService.borrowBook(borrowRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Borrow several books", description = "User can borrow a cart of books at once, either all of them are borrowed or none")
+    public ResponseEntity<List<BorrowResponse>> borrowBooks(@Valid @RequestBody BatchBorrowRequest batchBorrowRequest) {
+        List<BorrowResponse> responses = borrowService.borrowBooks(batchBorrowRequest);
+        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    }
+
+    @PutMapping("/batch/return")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Return several books", description = "User can return several borrowed books at once, either all of them are returned or none")
+    public ResponseEntity<List<BorrowResponse>> returnBooks(@Valid @RequestBody BatchReturnRequest batchReturnRequest) {
+        return ResponseEntity.ok(borrowService.returnBooks(batchReturnRequest));
+    }
+
     @PutMapping("/{borrowRecordId}/return")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Return a book", description = "User can return a borrowed book")
@@ -67,6 +85,15 @@ public class BorrowController {
         return ResponseEntity.ok(borrowService.getAllActiveBorrows());
     }
 
+    @GetMapping("/all/overdue")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get overdue borrows", description = "Admin can retrieve a page of open borrows past their due date, use nextCursor to continue")
+    public ResponseEntity<CursorPageResponse<BorrowResponse>> getOverdueBorrows(
+            @RequestParam (required = false) String cursor,
+            @RequestParam (defaultValue = "50") int size) {
+        return ResponseEntity.ok(borrowService.getOverdueBorrows(cursor, size));
+    }
+
     @GetMapping("/all/returned")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get all returned borrows", description = "Admin can retrieve all returned borrows")
@@ -7,11 +7,14 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.library.dto.category.CategoryRequest;
 import org.library.dto.category.CategoryResponse;
+import org.library.entities.CatalogEntityType;
+import org.library.service.CatalogETags;
 import org.library.service.CategoryService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,6 +25,7 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogETags catalogETags;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -33,13 +37,19 @@ public class CategoryController {
 
     @GetMapping("/{categoryId}")
     @Operation(summary = "Get category by ID", description = "Retrieves a category by its ID")
-    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long categoryId) {
+    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long categoryId, WebRequest request) {
+        if (request.checkNotModified(catalogETags.entityTag(CatalogEntityType.CATEGORY, categoryId))) {
+            return null;
+        }
         CategoryResponse categoryResponse = categoryService.findCategoryById(categoryId);
         return ResponseEntity.ok(categoryResponse);
     }
     @GetMapping
     @Operation(summary = "Get all categories", description = "Retrieves a list of all categories")
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(catalogETags.collectionTag(CatalogEntityType.CATEGORY))) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
@@ -0,0 +1,49 @@
+package org.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.library.service.DataFormat;
+import org.library.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@Tag(name = "Export", description = "Endpoints for exporting the catalog and borrow history")
+public class ExportController {
+    private final ExportService exportService;
+
+    @GetMapping("/books")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export the catalog", description = "Admin only - Streams every book as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam (defaultValue = "ndjson") String format) {
+        DataFormat exportFormat = DataFormat.parse(format);
+        return stream(exportFormat, "books", out -> exportService.exportBooks(exportFormat, out));
+    }
+
+    @GetMapping("/borrows")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export borrow history", description = "Admin only - Streams every borrow record as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportBorrows(@RequestParam (defaultValue = "ndjson") String format) {
+        DataFormat exportFormat = DataFormat.parse(format);
+        return stream(exportFormat, "borrows", out -> exportService.exportBorrows(exportFormat, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(DataFormat format, String name,
+                                                         StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,25 @@
+package org.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.library.service.PatronNotifier;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@Tag(name = "Notifications", description = "Endpoints for patron notifications")
+public class NotificationController {
+    private final PatronNotifier patronNotifier;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Stream my notifications", description = "Server-sent events for the user: 'hold' when a reserved book is set aside for them, with the time by which it has to be collected, and 'overdue' when one of their loans passes its due date")
+    public SseEmitter streamNotifications() {
+        return patronNotifier.subscribe();
+    }
+}
@@ -0,0 +1,45 @@
+package org.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.library.dto.reservation.ReservationRequest;
+import org.library.dto.reservation.ReservationResponse;
+import org.library.service.ReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+@Tag(name = "Reservations", description = "Endpoints for reserving borrowed books")
+public class ReservationController {
+    private final ReservationService reservationService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Reserve a book", description = "User joins the queue for a borrowed book. When it is returned it is held for them and can be collected with a normal borrow")
+    public ResponseEntity<ReservationResponse> reserveBook(@Valid @RequestBody ReservationRequest reservationRequest) {
+        ReservationResponse response = reservationService.reserveBook(reservationRequest);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get my reservations", description = "Returns the user's waiting and ready reservations with their queue position")
+    public ResponseEntity<List<ReservationResponse>> getMyReservations() {
+        return ResponseEntity.ok(reservationService.getMyReservations());
+    }
+
+    @DeleteMapping("/{reservationId}")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Cancel a reservation", description = "User leaves the queue, or gives up a book held for them")
+    public ResponseEntity<ReservationResponse> cancelReservation(@PathVariable Long reservationId) {
+        return ResponseEntity.ok(reservationService.cancelReservation(reservationId));
+    }
+}
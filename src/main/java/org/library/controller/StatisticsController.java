@@ -4,11 +4,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.library.dto.statistics.StatisticsResponse;
+import org.library.dto.statistics.TrendingResponse;
 import org.library.service.StatisticsService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -22,9 +25,30 @@ public class StatisticsController {
     @GetMapping
     @Operation(
             summary = "Get library statistics",
-            description = "Returns comprehensive statistics including popular categories, authors, and most borrowed books"
+            description = "Returns the latest statistics snapshot including popular categories, authors, and most borrowed books"
     )
     public ResponseEntity<StatisticsResponse> getStatistics() {
         return ResponseEntity.ok(statisticsService.getStatistics());
     }
+
+    @GetMapping("/trending")
+    @Operation(
+            summary = "Get trending books, categories and authors",
+            description = "Returns the most borrowed items over the last span hours or days"
+    )
+    public ResponseEntity<TrendingResponse> getTrending(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "7") int span,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(statisticsService.getTrending(granularity, span, limit));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(
+            summary = "Refresh library statistics",
+            description = "Recomputes the statistics snapshot, joining a refresh that is already running"
+    )
+    public ResponseEntity<StatisticsResponse> refreshStatistics() {
+        return ResponseEntity.ok(statisticsService.refreshStatistics());
+    }
 }
\ No newline at end of file
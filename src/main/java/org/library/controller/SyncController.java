@@ -0,0 +1,27 @@
+package org.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.library.dto.sync.SyncResponse;
+import org.library.service.SyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Tag(name = "Sync", description = "Endpoints for keeping catalog mirrors up to date")
+public class SyncController {
+    private final SyncService syncService;
+
+    @GetMapping
+    @Operation(summary = "Get catalog changes", description = "Returns books, authors and categories changed after the given version and the ids of deleted entries, oldest change first. Start with since=0 and pass nextSince back until hasMore is false")
+    public ResponseEntity<SyncResponse> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                   @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(syncService.changesSince(since, size));
+    }
+}
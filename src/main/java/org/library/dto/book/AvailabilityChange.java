@@ -0,0 +1,16 @@
+package org.library.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityChange {
+    private long version;
+    private long bookId;
+    private boolean borrowed;
+    // The book left the catalog, clients drop it
+    private boolean deleted;
+}
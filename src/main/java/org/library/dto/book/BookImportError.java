@@ -0,0 +1,14 @@
+package org.library.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportError {
+    private long line;
+    private String title;
+    private String message;
+}
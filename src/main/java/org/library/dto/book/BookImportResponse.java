@@ -0,0 +1,22 @@
+package org.library.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportResponse {
+    private long totalRows;
+    private long importedBooks;
+    private long createdAuthors;
+    private long createdCategories;
+    private long failedRows;
+    // Capped, failedRows has the full count
+    private List<BookImportError> errors;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
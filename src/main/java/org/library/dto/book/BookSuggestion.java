@@ -0,0 +1,14 @@
+package org.library.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSuggestion {
+    private String type;
+    private long id;
+    private String text;
+}
@@ -0,0 +1,14 @@
+package org.library.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RelatedBook {
+    private BookResponse book;
+    // Number of readers who borrowed both books
+    private long coBorrowCount;
+}
@@ -0,0 +1,14 @@
+package org.library.dto.borrow;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchBorrowRequest {
+
+    @NotEmpty(message = "At least one book ID is required")
+    private List<@NotNull(message = "Book ID is required") Long> bookIds;
+}
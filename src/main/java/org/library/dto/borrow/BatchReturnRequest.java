@@ -0,0 +1,14 @@
+package org.library.dto.borrow;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchReturnRequest {
+
+    @NotEmpty(message = "At least one borrow record ID is required")
+    private List<@NotNull(message = "Borrow record ID is required") Long> borrowRecordIds;
+}
@@ -17,6 +17,7 @@ public class BorrowResponse {
     private Long userId;
     private String userName;
     private LocalDate borrowDate;
+    private LocalDate dueDate;
     private LocalDate returnDate;
     private boolean isReturned;
 
@@ -0,0 +1,16 @@
+package org.library.dto.borrow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OverdueNotification {
+    private Long borrowRecordId;
+    private Long bookId;
+    private LocalDate dueDate;
+}
@@ -0,0 +1,46 @@
+package org.library.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.library.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    // Rows are expected to be fetched with size + 1 so we know whether another page exists
+    public static <T> CursorPageResponse<T> of(List<T> rows, int size, Function<T, Long> keyOf) {
+        if (rows.size() <= size) {
+            return new CursorPageResponse<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, size);
+        String nextCursor = encodeCursor(keyOf.apply(items.get(size - 1)));
+        return new CursorPageResponse<>(List.copyOf(items), nextCursor, true);
+    }
+
+    public static String encodeCursor(long key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.library.dto.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldNotification {
+    private Long reservationId;
+    private Long bookId;
+    // Collect the book with a normal borrow before this time
+    private LocalDateTime expiresAt;
+}
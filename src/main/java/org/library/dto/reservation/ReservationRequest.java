@@ -0,0 +1,11 @@
+package org.library.dto.reservation;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ReservationRequest {
+
+    @NotNull(message = "Book ID is required")
+    private Long bookId;
+}
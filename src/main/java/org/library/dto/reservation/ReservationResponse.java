@@ -0,0 +1,23 @@
+package org.library.dto.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.library.entities.ReservationStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationResponse {
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private ReservationStatus status;
+    // Place in the queue while waiting, 1 is next in line
+    private Integer position;
+    private LocalDateTime createdAt;
+    // Collect the book before this time once the reservation is ready
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package org.library.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Reported borrow counts may overestimate the true count by at most the given bound
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApproximationBounds {
+    private int sketchCapacity;
+    private long popularCategoriesErrorBound;
+    private long popularAuthorsErrorBound;
+    private long mostBorrowedBooksErrorBound;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -19,5 +20,8 @@ public class StatisticsResponse {
     private List<CategoryStatistics> popularCategories;
     private List<AuthorStatistics> popularAuthors;
     private List<BookStatistics> mostBorrowedBooks;
+    private LocalDateTime generatedAt;
+    // Only set when the top lists come from heavy hitter sketches
+    private ApproximationBounds approximation;
 }
 
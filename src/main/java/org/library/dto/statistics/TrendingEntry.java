@@ -0,0 +1,14 @@
+package org.library.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingEntry {
+    private Long id;
+    private String name;
+    private long borrowCount;
+}
@@ -0,0 +1,21 @@
+package org.library.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingResponse {
+    private String granularity;
+    private int span;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TrendingEntry> trendingBooks;
+    private List<TrendingEntry> trendingCategories;
+    private List<TrendingEntry> trendingAuthors;
+}
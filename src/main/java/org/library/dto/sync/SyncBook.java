@@ -0,0 +1,18 @@
+package org.library.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncBook {
+    private Long version;
+    private Long id;
+    private String title;
+    private Long authorId;
+    private Long categoryId;
+    private int releaseYear;
+    private boolean borrowed;
+}
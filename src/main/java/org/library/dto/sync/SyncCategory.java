@@ -0,0 +1,14 @@
+package org.library.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncCategory {
+    private Long version;
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,20 @@
+package org.library.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResponse {
+    private List<SyncAuthor> authors;
+    private List<SyncCategory> categories;
+    private List<SyncBook> books;
+    private List<SyncTombstone> deleted;
+    // Pass back as since for the next call, also when hasMore is false
+    private long nextSince;
+    private boolean hasMore;
+}
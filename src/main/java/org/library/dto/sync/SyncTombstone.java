@@ -0,0 +1,15 @@
+package org.library.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.library.entities.CatalogEntityType;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncTombstone {
+    private Long version;
+    private CatalogEntityType type;
+    private Long id;
+}
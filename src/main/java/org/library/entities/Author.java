@@ -9,19 +9,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "authors")
+@Table(name = "authors", indexes = @Index(name = "idx_authors_change_version", columnList = "change_version"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
     private String name;
 
+    // Catalog change version for delta sync, a fresh value from catalog_change_seq on every change
+    @Column(name = "change_version")
+    private Long changeVersion;
+
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Book> books = new ArrayList<>();
 
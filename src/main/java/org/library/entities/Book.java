@@ -6,14 +6,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = @Index(name = "idx_books_change_version", columnList = "change_version"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
 
+    // Pooled sequence ids let Hibernate batch inserts, which IDENTITY columns rule out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -24,6 +26,10 @@ public class Book {
 
     private boolean isBorrowed = false;
 
+    // Catalog change version for delta sync, a fresh value from catalog_change_seq on every change
+    @Column(name = "change_version")
+    private Long changeVersion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
     private Author author;
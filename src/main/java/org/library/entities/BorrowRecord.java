@@ -9,14 +9,20 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "borrow_records")
+@Table(name = "borrow_records", indexes = {
+        // Open loans not yet flagged, by due date: the overdue scan reads just the ones that crossed it
+        @Index(name = "idx_borrow_records_open_due", columnList = "is_returned, is_overdue, due_date"),
+        // Flagged open loans in id order, so each keyset page of the overdue list is a single range read
+        @Index(name = "idx_borrow_records_open_overdue_id", columnList = "is_returned, is_overdue, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class BorrowRecord {
 
     @Id
-    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrow_records_seq")
+    @SequenceGenerator(name = "borrow_records_seq", sequenceName = "borrow_records_seq", allocationSize = 50)
     private long id;
 
     @Column(nullable = false)
@@ -24,8 +30,15 @@ public class BorrowRecord {
 
     private LocalDate returnDate;
 
+    // Null only for records from before due dates existed, those are filled in at startup
+    private LocalDate dueDate;
+
     private boolean isReturned;
 
+    // Set once by the overdue scan and kept after a late return
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean isOverdue = false;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
@@ -0,0 +1,7 @@
+package org.library.entities;
+
+public enum CatalogEntityType {
+    BOOK,
+    AUTHOR,
+    CATEGORY
+}
@@ -0,0 +1,36 @@
+package org.library.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A deleted catalog entry, kept so that mirrors syncing past its version learn about the delete
+@Entity
+@Table(name = "catalog_tombstones", indexes = {
+        @Index(name = "idx_catalog_tombstones_change_version", columnList = "change_version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CatalogEntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
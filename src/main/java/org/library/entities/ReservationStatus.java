@@ -0,0 +1,11 @@
+package org.library.entities;
+
+public enum ReservationStatus {
+    // In the queue for the book
+    WAITING,
+    // The book is held for the patron until expiresAt
+    READY,
+    FULFILLED,
+    CANCELLED,
+    EXPIRED
+}
@@ -23,6 +23,10 @@ public class User {
 
     private boolean isActive;
 
+    // Open borrows, kept in step with borrow_records by conditional updates in BorrowService
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int activeBorrowCount = 0;
+
     @Enumerated(EnumType.STRING)
     private Role role;
 
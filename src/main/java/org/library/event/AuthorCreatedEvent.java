@@ -0,0 +1,9 @@
+package org.library.event;
+
+import lombok.Value;
+
+@Value
+public class AuthorCreatedEvent {
+    Long authorId;
+    String name;
+}
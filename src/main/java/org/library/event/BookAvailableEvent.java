@@ -0,0 +1,9 @@
+package org.library.event;
+
+import lombok.Value;
+
+// A book went back on the shelf: returned with nobody waiting, or a hold on it ran out or was given up
+@Value
+public class BookAvailableEvent {
+    Long bookId;
+}
@@ -0,0 +1,15 @@
+package org.library.event;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class BookBorrowedEvent {
+    BookSnapshot book;
+    Long userId;
+    Long borrowRecordId;
+    LocalDate borrowDate;
+    // Collected from a hold, the book was flagged as borrowed already
+    boolean fromHold;
+}
@@ -0,0 +1,8 @@
+package org.library.event;
+
+import lombok.Value;
+
+@Value
+public class BookDeletedEvent {
+    BookSnapshot book;
+}
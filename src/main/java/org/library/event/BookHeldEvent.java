@@ -0,0 +1,14 @@
+package org.library.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// A returned book was set aside for the next patron in its reservation queue
+@Value
+public class BookHeldEvent {
+    Long bookId;
+    Long userId;
+    Long reservationId;
+    LocalDateTime expiresAt;
+}
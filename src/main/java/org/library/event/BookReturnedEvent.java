@@ -0,0 +1,13 @@
+package org.library.event;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class BookReturnedEvent {
+    BookSnapshot book;
+    Long userId;
+    Long borrowRecordId;
+    LocalDate returnDate;
+}
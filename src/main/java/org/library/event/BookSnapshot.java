@@ -0,0 +1,30 @@
+package org.library.event;
+
+import lombok.Value;
+import org.library.entities.Book;
+
+// Flat copy of a book with its author and category, safe to hand to listeners after the transaction ends
+@Value
+public class BookSnapshot {
+    Long id;
+    String title;
+    Long authorId;
+    String authorName;
+    Long categoryId;
+    String categoryName;
+    int releaseYear;
+    boolean borrowed;
+
+    public static BookSnapshot of(Book book) {
+        return new BookSnapshot(
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor().getId(),
+                book.getAuthor().getName(),
+                book.getCategory().getId(),
+                book.getCategory().getName(),
+                book.getReleaseYear(),
+                book.isBorrowed()
+        );
+    }
+}
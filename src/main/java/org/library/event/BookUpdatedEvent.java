@@ -0,0 +1,9 @@
+package org.library.event;
+
+import lombok.Value;
+
+@Value
+public class BookUpdatedEvent {
+    BookSnapshot previous;
+    BookSnapshot current;
+}
@@ -0,0 +1,14 @@
+package org.library.event;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+// An open loan went past its due date, published once per borrow record
+@Value
+public class BorrowOverdueEvent {
+    Long borrowRecordId;
+    Long bookId;
+    Long userId;
+    LocalDate dueDate;
+}
@@ -1,9 +1,15 @@
 package org.library.repository;
 
+import org.library.dto.sync.SyncAuthor;
 import org.library.entities.Author;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,10 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
 
     Optional<Author> findByName(String name);
 
+    List<Author> findByNameIn(Collection<String> names);
+
+    @Query("SELECT new org.library.dto.sync.SyncAuthor(a.changeVersion, a.id, a.name) FROM Author a " +
+            "WHERE a.changeVersion > :since AND a.changeVersion <= :until ORDER BY a.changeVersion")
+    List<SyncAuthor> findChanges(@Param("since") long since, @Param("until") long until, Pageable pageable);
+
 }
@@ -1,20 +1,35 @@
 package org.library.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.library.dto.book.BookResponse;
+import org.library.dto.sync.SyncBook;
 import org.library.entities.Book;
 import org.library.entities.Category;
 import org.library.entities.Author;
+import org.library.event.BookSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitle(String title);
 
+    @Query("SELECT b.title FROM Book b WHERE b.title IN :titles")
+    List<String> findExistingTitles(@Param("titles") Collection<String> titles);
+
     List<Book> findByCategory(Category categoryName);
 
     List<Book> findByAuthor(Author author);
@@ -24,14 +39,117 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByIsBorrowedTrue();
     List<Book> findByIsBorrowedFalse();
 
-    @Query("SELECT b FROM Book b WHERE " +
+    long countByIsBorrowedTrue();
+    long countByIsBorrowedFalse();
+
+    @Query("SELECT b.author.id AS id, COUNT(b) AS total FROM Book b WHERE b.author.id IN :authorIds GROUP BY b.author.id")
+    List<IdCount> countBooksByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT b.category.id AS id, COUNT(b) AS total FROM Book b WHERE b.category.id IN :categoryIds GROUP BY b.category.id")
+    List<IdCount> countBooksByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds);
+
+    // Whole catalog in id order, fetched from the driver in chunks for exports
+    @Query("SELECT b FROM Book b JOIN FETCH b.author JOIN FETCH b.category ORDER BY b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAllWithAuthorAndCategory();
+
+    @Query("SELECT b FROM Book b JOIN FETCH b.author JOIN FETCH b.category WHERE b.id = :id")
+    Optional<Book> findWithAuthorAndCategoryById(@Param("id") Long id);
+
+    @Query("SELECT b FROM Book b JOIN FETCH b.author JOIN FETCH b.category WHERE b.id IN :ids")
+    List<Book> findAllWithAuthorAndCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Row lock that serializes reservations against the hand-off of a returned book
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    // Conditional updates, a result of 0 means the book was missing or already in that state.
+    // Native so that every changed row takes its own change version from the sequence.
+    @Modifying
+    @Query(value = "UPDATE books SET is_borrowed = true, change_version = nextval('catalog_change_seq') " +
+            "WHERE id = :id AND is_borrowed = false", nativeQuery = true)
+    int markBorrowed(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE books SET is_borrowed = false, change_version = nextval('catalog_change_seq') " +
+            "WHERE id = :id AND is_borrowed = true", nativeQuery = true)
+    int markReturned(@Param("id") Long id);
+
+    // Set based variants for carts, the result is the number of books that changed state
+    @Modifying
+    @Query(value = "UPDATE books SET is_borrowed = true, change_version = nextval('catalog_change_seq') " +
+            "WHERE id IN (:ids) AND is_borrowed = false", nativeQuery = true)
+    int markAllBorrowed(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE books SET is_borrowed = false, change_version = nextval('catalog_change_seq') " +
+            "WHERE id IN (:ids) AND is_borrowed = true", nativeQuery = true)
+    int markAllReturned(@Param("ids") Collection<Long> ids);
+
+    // Projections straight into BookResponse, author and category names come from the same join
+    String BOOK_RESPONSE_SELECT = "SELECT new org.library.dto.book.BookResponse(" +
+            "b.id, b.title, a.name, c.name, b.releaseYear, b.isBorrowed) " +
+            "FROM Book b JOIN b.author a JOIN b.category c ";
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE b.id = :id")
+    Optional<BookResponse> findResponseById(@Param("id") Long id);
+
+    @Query("SELECT b.id FROM Book b WHERE b.title = :title")
+    Optional<Long> findIdByTitle(@Param("title") String title);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE b.id IN :ids ORDER BY b.id")
+    List<BookResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new org.library.event.BookSnapshot(" +
+            "b.id, b.title, a.id, a.name, c.id, c.name, b.releaseYear, b.isBorrowed) " +
+            "FROM Book b JOIN b.author a JOIN b.category c WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSnapshot> findSnapshotPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Books changed in the version range, oldest change first
+    @Query("SELECT new org.library.dto.sync.SyncBook(" +
+            "b.changeVersion, b.id, b.title, b.author.id, b.category.id, b.releaseYear, b.isBorrowed) " +
+            "FROM Book b WHERE b.changeVersion > :since AND b.changeVersion <= :until ORDER BY b.changeVersion")
+    List<SyncBook> findChanges(@Param("since") long since, @Param("until") long until, Pageable pageable);
+
+    // Keyset pages, ordered by id and starting after the last id of the previous page
+    @Query(BOOK_RESPONSE_SELECT + "WHERE b.id > :afterId ORDER BY b.id")
+    List<BookResponse> findPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE b.isBorrowed = :borrowed AND b.id > :afterId ORDER BY b.id")
+    List<BookResponse> findPageByBorrowed(@Param("borrowed") boolean borrowed,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE a.id = :authorId AND b.id > :afterId ORDER BY b.id")
+    List<BookResponse> findPageByAuthorId(@Param("authorId") Long authorId,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE c.id = :categoryId AND b.id > :afterId ORDER BY b.id")
+    List<BookResponse> findPageByCategoryId(@Param("categoryId") Long categoryId,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE b.releaseYear = :releaseYear AND b.id > :afterId ORDER BY b.id")
+    List<BookResponse> findPageByReleaseYear(@Param("releaseYear") int releaseYear,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query(BOOK_RESPONSE_SELECT + "WHERE " +
             "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-            "(:authorName IS NULL OR LOWER(b.author.name) LIKE LOWER(CONCAT('%', :authorName, '%'))) AND " +
-            "(:categoryName IS NULL OR LOWER(b.category.name) LIKE LOWER(CONCAT('%', :categoryName, '%'))) AND " +
-            "(:releaseYear IS NULL OR b.releaseYear = :releaseYear)")
-    List<Book> searchBooks(@Param("title") String title,
-                           @Param("authorName") String authorName,
-                           @Param("categoryName") String categoryName,
-                           @Param("releaseYear") Integer releaseYear);
+            "(:authorName IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :authorName, '%'))) AND " +
+            "(:categoryName IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :categoryName, '%'))) AND " +
+            "(:releaseYear IS NULL OR b.releaseYear = :releaseYear) AND " +
+            "b.id > :afterId ORDER BY b.id")
+    List<BookResponse> searchBooks(@Param("title") String title,
+                                   @Param("authorName") String authorName,
+                                   @Param("categoryName") String categoryName,
+                                   @Param("releaseYear") Integer releaseYear,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
 }
 
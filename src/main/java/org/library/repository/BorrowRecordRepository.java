@@ -1,12 +1,25 @@
 package org.library.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.library.dto.statistics.AuthorStatistics;
+import org.library.dto.statistics.BookStatistics;
+import org.library.dto.statistics.CategoryStatistics;
 import org.library.entities.Book;
 import org.library.entities.BorrowRecord;
 import org.library.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
@@ -17,6 +30,8 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     // Find all active borrow records for a specific user
     List<BorrowRecord> findByUserAndIsReturnedFalse(User user);
 
+    boolean existsByUserIdAndBookIdAndIsReturnedFalse(Long userId, Long bookId);
+
     // Count active borrow records for a specific user
     int countByUserAndIsReturnedFalse(User user);
 
@@ -28,4 +43,93 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
 
     // Find all active borrow records
     List<BorrowRecord> findByIsReturnedFalse();
+
+    // Count all active borrow records
+    long countByIsReturnedFalse();
+
+    // Borrow count per book over the whole history
+    @Query("SELECT r.book.id AS id, COUNT(r) AS total FROM BorrowRecord r GROUP BY r.book.id")
+    List<IdCount> countBorrowsPerBook();
+
+    // Borrows per book and day since the given date, used to rebuild the trending buckets
+    @Query("SELECT r.borrowDate AS borrowDate, b.id AS bookId, b.title AS bookTitle, " +
+            "a.id AS authorId, a.name AS authorName, c.id AS categoryId, c.name AS categoryName, " +
+            "COUNT(r) AS borrowCount " +
+            "FROM BorrowRecord r JOIN r.book b JOIN b.author a JOIN b.category c " +
+            "WHERE r.borrowDate >= :since " +
+            "GROUP BY r.borrowDate, b.id, b.title, a.id, a.name, c.id, c.name")
+    List<DailyBorrowCount> countDailyBorrowsSince(@Param("since") LocalDate since);
+
+    // Whole borrow history in id order, fetched from the driver in chunks for exports
+    @Query("SELECT r FROM BorrowRecord r JOIN FETCH r.book JOIN FETCH r.user ORDER BY r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BorrowRecord> streamAllWithBookAndUser();
+
+    // Distinct user/book pairs grouped by user, streamed for the co-borrow index rebuild
+    @Query("SELECT DISTINCT r.user.id AS userId, r.book.id AS bookId FROM BorrowRecord r ORDER BY r.user.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserBookPair> streamUserBookPairs();
+
+    // Top lists for the statistics dashboard, grouped and ordered in the database with names already joined
+    @Query("SELECT new org.library.dto.statistics.CategoryStatistics(c.id, c.name, " +
+            "(SELECT COUNT(cb) FROM Book cb WHERE cb.category.id = c.id), COUNT(r)) " +
+            "FROM BorrowRecord r JOIN r.book b JOIN b.category c " +
+            "GROUP BY c.id, c.name ORDER BY COUNT(r) DESC")
+    List<CategoryStatistics> findPopularCategories(Pageable pageable);
+
+    @Query("SELECT new org.library.dto.statistics.AuthorStatistics(a.id, a.name, " +
+            "(SELECT COUNT(ab) FROM Book ab WHERE ab.author.id = a.id), COUNT(r)) " +
+            "FROM BorrowRecord r JOIN r.book b JOIN b.author a " +
+            "GROUP BY a.id, a.name ORDER BY COUNT(r) DESC")
+    List<AuthorStatistics> findPopularAuthors(Pageable pageable);
+
+    @Query("SELECT new org.library.dto.statistics.BookStatistics(b.id, b.title, a.name, COUNT(r)) " +
+            "FROM BorrowRecord r JOIN r.book b JOIN b.author a " +
+            "GROUP BY b.id, b.title, a.name ORDER BY COUNT(r) DESC")
+    List<BookStatistics> findMostBorrowedBooks(Pageable pageable);
+
+    // Close a borrow record only if it is still open
+    @Modifying
+    @Query("UPDATE BorrowRecord r SET r.isReturned = true, r.returnDate = :returnDate " +
+            "WHERE r.id = :id AND r.isReturned = false")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
+    @Modifying
+    @Query("UPDATE BorrowRecord r SET r.isReturned = true, r.returnDate = :returnDate " +
+            "WHERE r.id IN :ids AND r.user.id = :userId AND r.isReturned = false")
+    int markAllReturned(@Param("ids") Collection<Long> ids,
+                        @Param("userId") Long userId,
+                        @Param("returnDate") LocalDate returnDate);
+
+    @Query("SELECT r FROM BorrowRecord r JOIN FETCH r.book b JOIN FETCH b.author JOIN FETCH b.category " +
+            "WHERE r.id IN :ids")
+    List<BorrowRecord> findAllWithBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Open loans past their due date that the overdue scan has not flagged yet, earliest due first
+    @Query("SELECT r.id AS id, r.book.id AS bookId, r.user.id AS userId, r.dueDate AS dueDate " +
+            "FROM BorrowRecord r WHERE r.isReturned = false AND r.isOverdue = false AND r.dueDate < :today " +
+            "ORDER BY r.dueDate, r.id")
+    List<OverdueRef> findNewlyOverdue(@Param("today") LocalDate today, Pageable pageable);
+
+    // Loans returned since they were read are skipped
+    @Modifying
+    @Query("UPDATE BorrowRecord r SET r.isOverdue = true " +
+            "WHERE r.id IN :ids AND r.isReturned = false AND r.isOverdue = false")
+    int markAllOverdue(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id FROM BorrowRecord r WHERE r.id IN :ids AND r.isReturned = false AND r.isOverdue = true")
+    List<Long> findOpenOverdueIdsIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pages of open loans the overdue scan has flagged, ordered by id
+    @Query("SELECT r FROM BorrowRecord r JOIN FETCH r.book JOIN FETCH r.user " +
+            "WHERE r.isReturned = false AND r.isOverdue = true AND r.id > :afterId ORDER BY r.id")
+    List<BorrowRecord> findOverduePage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE borrow_records SET due_date = borrow_date + CAST(:loanDays AS integer) " +
+            "WHERE due_date IS NULL", nativeQuery = true)
+    int backfillDueDates(@Param("loanDays") int loanDays);
 }
@@ -0,0 +1,21 @@
+package org.library.repository;
+
+import org.library.dto.sync.SyncTombstone;
+import org.library.entities.CatalogTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogTombstoneRepository extends JpaRepository<CatalogTombstone, Long> {
+
+    @Query("SELECT new org.library.dto.sync.SyncTombstone(t.changeVersion, t.entityType, t.entityId) " +
+            "FROM CatalogTombstone t WHERE t.changeVersion > :since AND t.changeVersion <= :until " +
+            "ORDER BY t.changeVersion")
+    List<SyncTombstone> findChanges(@Param("since") long since, @Param("until") long until, Pageable pageable);
+
+}
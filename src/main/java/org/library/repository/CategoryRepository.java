@@ -1,9 +1,15 @@
 package org.library.repository;
 
+import org.library.dto.sync.SyncCategory;
 import org.library.entities.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Optional<Category> findByName(String name);
 
+    List<Category> findByNameIn(Collection<String> names);
+
+    @Query("SELECT new org.library.dto.sync.SyncCategory(c.changeVersion, c.id, c.name) FROM Category c " +
+            "WHERE c.changeVersion > :since AND c.changeVersion <= :until ORDER BY c.changeVersion")
+    List<SyncCategory> findChanges(@Param("since") long since, @Param("until") long until, Pageable pageable);
+
 }
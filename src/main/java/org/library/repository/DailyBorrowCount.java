@@ -0,0 +1,22 @@
+package org.library.repository;
+
+import java.time.LocalDate;
+
+// Borrows of one book on one day, with the names needed to report it
+public interface DailyBorrowCount {
+    LocalDate getBorrowDate();
+
+    Long getBookId();
+
+    String getBookTitle();
+
+    Long getAuthorId();
+
+    String getAuthorName();
+
+    Long getCategoryId();
+
+    String getCategoryName();
+
+    long getBorrowCount();
+}
@@ -0,0 +1,8 @@
+package org.library.repository;
+
+// A count grouped under one id, such as borrows per book or books per author
+public interface IdCount {
+    Long getId();
+
+    long getTotal();
+}
@@ -0,0 +1,14 @@
+package org.library.repository;
+
+import java.time.LocalDate;
+
+// An open borrow record that went past its due date
+public interface OverdueRef {
+    Long getId();
+
+    Long getBookId();
+
+    Long getUserId();
+
+    LocalDate getDueDate();
+}
@@ -0,0 +1,10 @@
+package org.library.repository;
+
+// Ids of a reservation and the book and user it belongs to
+public interface ReservationRef {
+    Long getId();
+
+    Long getBookId();
+
+    Long getUserId();
+}
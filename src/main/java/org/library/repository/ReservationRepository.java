@@ -0,0 +1,66 @@
+package org.library.repository;
+
+import org.library.entities.Reservation;
+import org.library.entities.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    boolean existsByUserIdAndBookIdAndStatusIn(Long userId, Long bookId, Collection<ReservationStatus> statuses);
+
+    long countByUserIdAndStatusIn(Long userId, Collection<ReservationStatus> statuses);
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.book JOIN FETCH r.user WHERE r.id = :id")
+    Optional<Reservation> findWithBookAndUserById(@Param("id") Long id);
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.book WHERE r.user.id = :userId AND r.status IN :statuses " +
+            "ORDER BY r.createdAt")
+    List<Reservation> findWithBookByUserIdAndStatusIn(@Param("userId") Long userId,
+                                                      @Param("statuses") Collection<ReservationStatus> statuses);
+
+    // Every queue in FIFO order, to restore the in-memory queues at startup
+    @Query("SELECT r.id AS id, r.book.id AS bookId, r.user.id AS userId FROM Reservation r " +
+            "WHERE r.status = org.library.entities.ReservationStatus.WAITING ORDER BY r.createdAt, r.id")
+    List<ReservationRef> findWaiting();
+
+    @Query("SELECT r.id AS id, r.book.id AS bookId, r.user.id AS userId FROM Reservation r " +
+            "WHERE r.status = org.library.entities.ReservationStatus.READY AND r.expiresAt <= :now")
+    List<ReservationRef> findExpiredHolds(@Param("now") LocalDateTime now);
+
+    // Conditional state changes, a result of 0 means the reservation had already moved on
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = org.library.entities.ReservationStatus.READY, " +
+            "r.readyAt = :readyAt, r.expiresAt = :expiresAt " +
+            "WHERE r.id = :id AND r.status = org.library.entities.ReservationStatus.WAITING")
+    int markReady(@Param("id") Long id,
+                  @Param("readyAt") LocalDateTime readyAt,
+                  @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = org.library.entities.ReservationStatus.FULFILLED " +
+            "WHERE r.user.id = :userId AND r.book.id = :bookId " +
+            "AND r.status = org.library.entities.ReservationStatus.READY AND r.expiresAt > :now")
+    int markCollected(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.book.id FROM Reservation r WHERE r.user.id = :userId AND r.book.id IN :bookIds " +
+            "AND r.status = org.library.entities.ReservationStatus.READY AND r.expiresAt > :now")
+    List<Long> findHeldBookIds(@Param("userId") Long userId,
+                               @Param("bookIds") Collection<Long> bookIds,
+                               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = :status WHERE r.id = :id AND r.status = :expected")
+    int updateStatus(@Param("id") Long id,
+                     @Param("expected") ReservationStatus expected,
+                     @Param("status") ReservationStatus status);
+}
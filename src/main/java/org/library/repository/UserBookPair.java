@@ -0,0 +1,8 @@
+package org.library.repository;
+
+// A user and one book they have borrowed at least once
+public interface UserBookPair {
+    Long getUserId();
+
+    Long getBookId();
+}
@@ -3,6 +3,9 @@ package org.library.repository;
 import org.library.entities.Role;
 import org.library.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,5 +25,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByIsActiveTrue();
     List<User> findByIsActiveFalse();
 
+    @Query("SELECT u.isActive FROM User u WHERE u.id = :id")
+    Optional<Boolean> findActiveStatusById(@Param("id") Long id);
+
+    // Takes a borrow slot only while the user is under the limit, 0 means the limit is reached
+    @Modifying
+    @Query("UPDATE User u SET u.activeBorrowCount = u.activeBorrowCount + 1 " +
+            "WHERE u.id = :id AND u.activeBorrowCount < :limit")
+    int incrementActiveBorrows(@Param("id") Long id, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeBorrowCount = u.activeBorrowCount - 1 " +
+            "WHERE u.id = :id AND u.activeBorrowCount > 0")
+    int decrementActiveBorrows(@Param("id") Long id);
+
+    // Takes or frees several slots at once for carts, all or nothing against the limit
+    @Modifying
+    @Query("UPDATE User u SET u.activeBorrowCount = u.activeBorrowCount + :count " +
+            "WHERE u.id = :id AND u.activeBorrowCount + :count <= :limit")
+    int addActiveBorrows(@Param("id") Long id, @Param("count") int count, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeBorrowCount = CASE WHEN u.activeBorrowCount > :count " +
+            "THEN u.activeBorrowCount - :count ELSE 0 END WHERE u.id = :id")
+    int removeActiveBorrows(@Param("id") Long id, @Param("count") int count);
+
+    @Modifying
+    @Query(value = "UPDATE users u SET active_borrow_count = " +
+            "(SELECT COUNT(*) FROM borrow_records r WHERE r.user_id = u.id AND r.is_returned = false)",
+            nativeQuery = true)
+    int recomputeActiveBorrowCounts();
+
 
 }
@@ -0,0 +1,42 @@
+package org.library.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Bounded cache of account active status, so deactivated users are still rejected
+// without querying the users table on every request. The application never deactivates an account
+// itself, that happens directly in the database, so entries are not evicted: a deactivated user is
+// rejected once their entry expires, at most ttl-seconds after the change.
+@Component
+public class AccountStatusCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.account-status-cache.max-size:10000}")
+    private long maxSize;
+    @Value("${security.account-status-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    private Cache<Long, Boolean> activeByUserId;
+
+    public AccountStatusCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.activeByUserId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public boolean isActive(Long userId) {
+        return activeByUserId.get(userId, id -> userRepository.findActiveStatusById(id).orElse(false));
+    }
+}
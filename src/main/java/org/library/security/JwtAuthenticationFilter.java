@@ -1,10 +1,12 @@
 package org.library.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.library.service.JwtService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,10 +21,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final AccountStatusCache accountStatusCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+    @Value("${jwt.stateless-auth:true}")
+    private boolean statelessAuth;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   CustomUserDetailsService userDetailsService,
+                                   AccountStatusCache accountStatusCache) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.accountStatusCache = accountStatusCache;
     }
 
     @Override
@@ -30,17 +39,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String jwt = null;
-        String email = null;
+        Claims claims = null;
 
+        // Token is verified once per request, repeat tokens are served from the JwtService cache
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            email = jwtService.getEmailFromToken(jwt);
+            claims = jwtService.verifyToken(authHeader.substring(7)).orElse(null);
         }
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if(claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null){
+            UserDetails userDetails = loadPrincipal(claims);
 
-            if(jwtService.isTokenValid(jwt)){
+            if(userDetails != null && userDetails.isEnabled()){
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -53,4 +61,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
+
+    private UserDetails loadPrincipal(Claims claims) {
+        // Tokens issued before the userId claim existed still go through the database
+        Long userId = statelessAuth ? claims.get("userId", Long.class) : null;
+        if (userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        if (!accountStatusCache.isActive(userId)) {
+            return null;
+        }
+        return new JwtUserPrincipal(userId, claims.getSubject(), claims.get("role", String.class));
+    }
+}
\ No newline at end of file
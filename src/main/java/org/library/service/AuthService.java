@@ -8,18 +8,18 @@ import org.library.entities.User;
 import org.library.exception.BadRequestException;
 import org.library.exception.ConflictException;
 import org.library.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.library.security.PasswordHashingExecutor;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final JwtService jwtService;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public AuthService(UserRepository userRepository, PasswordHashingExecutor passwordHashingExecutor, JwtService jwtService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
         this.jwtService = jwtService;
     }
 
@@ -32,13 +32,13 @@ public class AuthService {
         User user = new User();
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingExecutor.encode(request.getPassword()));
         user.setRole(Role.USER);
         user.setActive(true);
 
         userRepository.save(user);
 
-        String token = jwtService.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole().name());
 
         JwtResponse response = new JwtResponse();
         response.setToken(token);
@@ -56,7 +56,7 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new BadRequestException("Invalid email or password"));
 
-        if(!passwordEncoder.matches(request.getPassword(), user.getPassword())){
+        if(!passwordHashingExecutor.matches(request.getPassword(), user.getPassword())){
             throw new BadRequestException("Invalid email or password");
         }
 
@@ -65,7 +65,7 @@ public class AuthService {
         }
 
 
-        String token = jwtService.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole().name());
 
         JwtResponse response = new JwtResponse();
         response.setToken(token);
@@ -4,21 +4,35 @@ package org.library.service;
 import org.library.dto.author.AuthorRequest;
 import org.library.dto.author.AuthorResponse;
 import org.library.entities.Author;
+import org.library.entities.CatalogEntityType;
+import org.library.event.AuthorCreatedEvent;
 import org.library.exception.ConflictException;
 import org.library.exception.ResourceNotFoundException;
 import org.library.repository.AuthorRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
 public class AuthorService {
     private final AuthorRepository authorRepository;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthorService(AuthorRepository authorRepository) {
+    public AuthorService(AuthorRepository authorRepository,
+                         CatalogVersions catalogVersions,
+                         CatalogETags catalogETags,
+                         ApplicationEventPublisher eventPublisher) {
         this.authorRepository = authorRepository;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public AuthorResponse createAuthor(AuthorRequest authorRequest) {
         if(authorRepository.findByName(authorRequest.getName()).isPresent()){
             throw new ConflictException("Author with the same name already exists");
@@ -26,8 +40,11 @@ public class AuthorService {
 
         var author = new Author();
         author.setName(authorRequest.getName());
+        author.setChangeVersion(catalogVersions.next());
 
         Author saved = authorRepository.save(author);
+        catalogETags.changed(CatalogEntityType.AUTHOR, saved.getId());
+        eventPublisher.publishEvent(new AuthorCreatedEvent(saved.getId(), saved.getName()));
         return toAuthorResponse(saved);
     }
 
@@ -0,0 +1,277 @@
+package org.library.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.library.dto.book.AvailabilityChange;
+import org.library.event.BookAvailableEvent;
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookDeletedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pushes book availability deltas to SSE subscribers. Every change gets the next version and goes into a
+// bounded replay ring, used to catch up after a reconnect with Last-Event-ID. Live changes go into a small
+// buffer per subscriber, drained on a shared dispatch pool. A subscriber whose buffer overflows, or whose
+// send exceeds the send timeout, is completed and dropped, so a slow client can neither hold dispatch
+// threads nor back up the committing request; it reconnects and replays what it missed from the ring.
+@Component
+public class AvailabilityFeed {
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityFeed.class);
+    private static final String CHANGE_EVENT = "availability";
+    private static final String RESET_EVENT = "reset";
+
+    @Value("${library.availability.replay-size:10000}")
+    private int replaySize;
+    @Value("${library.availability.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+    @Value("${library.availability.dispatch-threads:4}")
+    private int dispatchThreads;
+    @Value("${library.availability.subscriber-buffer:256}")
+    private int subscriberBuffer;
+    @Value("${library.availability.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private AvailabilityChange[] ring;
+    private long latestVersion;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor dispatcher;
+    private ScheduledExecutorService sendTimeouts;
+
+    @PostConstruct
+    public void init() {
+        this.ring = new AvailabilityChange[replaySize];
+        // Versions continue from the clock after a restart, so an id from before is recognised as out of range
+        this.latestVersion = System.currentTimeMillis() * 1000;
+        this.dispatcher = new ThreadPoolExecutor(
+                dispatchThreads,
+                dispatchThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("availability-feed-")
+        );
+        this.sendTimeouts = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("availability-feed-timeout-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendTimeouts.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, subscriberBuffer);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        // Catch-up and registration happen under the publish lock, so no change is missed or sent twice
+        synchronized (this) {
+            if (lastEventId != null) {
+                List<AvailabilityChange> missed = changesAfter(lastEventId);
+                if (missed == null) {
+                    subscriber.resetTo = latestVersion;
+                } else {
+                    subscriber.replay.addAll(missed);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookCreated(BookCreatedEvent event) {
+        publish(event.getBook().getId(), false, false);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        publish(event.getBook().getId(), event.getBook().isBorrowed(), true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        publish(event.getBook().getId(), true, false);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookAvailable(BookAvailableEvent event) {
+        publish(event.getBookId(), false, false);
+    }
+
+    // Runs on the committing request thread, so it only ever offers to the buffers and never waits
+    private void publish(long bookId, boolean borrowed, boolean deleted) {
+        List<Subscriber> recipients;
+        synchronized (this) {
+            latestVersion++;
+            AvailabilityChange change = new AvailabilityChange(latestVersion, bookId, borrowed, deleted);
+            ring[slot(latestVersion)] = change;
+            recipients = new ArrayList<>(subscribers);
+            for (Subscriber subscriber : recipients) {
+                if (!subscriber.buffer.offer(change)) {
+                    subscribers.remove(subscriber);
+                    subscriber.closing = true;
+                }
+            }
+        }
+        // Overflowed subscribers are scheduled too, their drain completes the emitter
+        recipients.forEach(this::schedule);
+    }
+
+    // Changes after the given version, or null when some of them have already left the ring
+    private List<AvailabilityChange> changesAfter(long version) {
+        long oldest = Math.max(latestVersion - ring.length + 1, 0);
+        if (version > latestVersion || version < oldest - 1) {
+            return null;
+        }
+        List<AvailabilityChange> changes = new ArrayList<>((int) (latestVersion - version));
+        for (long next = version + 1; next <= latestVersion; next++) {
+            AvailabilityChange change = ring[slot(next)];
+            if (change == null || change.getVersion() != next) {
+                return null;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private int slot(long version) {
+        return (int) Math.floorMod(version, (long) ring.length);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.resetTo != null) {
+                // The client is told to reload and continues from the latest version at subscription
+                long resetTo = subscriber.resetTo;
+                send(subscriber, SseEmitter.event()
+                        .id(String.valueOf(resetTo))
+                        .name(RESET_EVENT)
+                        .data("Replay window exceeded, reload the catalog"));
+                subscriber.resetTo = null;
+            }
+            AvailabilityChange change;
+            while (!subscriber.closing && (change = subscriber.next()) != null) {
+                send(subscriber, SseEmitter.event()
+                        .id(String.valueOf(change.getVersion()))
+                        .name(CHANGE_EVENT)
+                        .data(change));
+            }
+            if (subscriber.closing) {
+                // Buffer overflowed: the client reconnects with Last-Event-ID and replays from the ring
+                subscriber.emitter.complete();
+                log.debug("Availability subscriber fell {} changes behind and was dropped", subscriberBuffer);
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.closing = true;
+            if (subscriber.timedOut) {
+                subscriber.emitter.complete();
+            }
+            log.debug("Availability subscriber dropped", e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        // A change published while the drain was finishing found it still marked as draining
+        if (subscriber.closing || !subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    // A send that does not finish within the timeout is interrupted and its subscriber dropped
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (subscriber.sendLock) {
+            subscriber.sender = Thread.currentThread();
+        }
+        ScheduledFuture<?> timeout = sendTimeouts.schedule(
+                subscriber::abortSend, sendTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            timeout.cancel(false);
+            synchronized (subscriber.sendLock) {
+                subscriber.sender = null;
+                // Clears an interrupt that arrived after the send had already returned
+                Thread.interrupted();
+            }
+        }
+        if (subscriber.timedOut) {
+            throw new IOException("Send timed out after " + sendTimeoutMs + " ms");
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<AvailabilityChange> buffer;
+        // Catch-up from the ring after a reconnect, sent before anything in the buffer
+        private final Queue<AvailabilityChange> replay = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Object sendLock = new Object();
+        private Thread sender;
+        private volatile Long resetTo;
+        private volatile boolean closing;
+        private volatile boolean timedOut;
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // Only called by the drain holding the draining flag
+        private AvailabilityChange next() {
+            AvailabilityChange replayed = replay.poll();
+            return replayed != null ? replayed : buffer.poll();
+        }
+
+        private void abortSend() {
+            synchronized (sendLock) {
+                if (sender != null) {
+                    timedOut = true;
+                    sender.interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.library.dto.book.BookResponse;
+import org.library.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+// Read-through cache for single book lookups. Titles map to ids so both lookups share one entry,
+// and a mutation only has to drop the id it touched.
+@Component
+public class BookCache {
+
+    private final BookRepository bookRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${library.book-cache.max-size:10000}")
+    private long maxSize;
+    private Cache<Long, BookResponse> booksById;
+    private Cache<String, Long> bookIdsByTitle;
+
+    public BookCache(BookRepository bookRepository, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.booksById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.bookIdsByTitle = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, booksById, "books.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, bookIdsByTitle, "books.byTitle");
+    }
+
+    public Optional<BookResponse> findById(Long bookId) {
+        return Optional.ofNullable(booksById.get(bookId, id -> bookRepository.findResponseById(id).orElse(null)));
+    }
+
+    // Only the title to id mapping is cached here, the book itself always goes through the id entry,
+    // so a title lookup can never put back a snapshot that an invalidation already dropped
+    public Optional<BookResponse> findByTitle(String title) {
+        Long bookId = bookIdsByTitle.getIfPresent(title);
+        if (bookId != null) {
+            Optional<BookResponse> cached = findById(bookId);
+            if (cached.isPresent() && cached.get().getTitle().equals(title)) {
+                return cached;
+            }
+            bookIdsByTitle.invalidate(title);
+        }
+
+        Optional<Long> foundId = bookRepository.findIdByTitle(title);
+        if (foundId.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<BookResponse> book = findById(foundId.get());
+        // Renamed between the two reads, the old title no longer names this book
+        if (book.isEmpty() || !book.get().getTitle().equals(title)) {
+            return Optional.empty();
+        }
+        bookIdsByTitle.put(title, foundId.get());
+        return book;
+    }
+
+    // Drops the entry now and again after commit, so a read racing with the transaction cannot
+    // leave the pre-commit state cached
+    public void invalidate(Long bookId) {
+        booksById.invalidate(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    booksById.invalidate(bookId);
+                }
+            });
+        }
+    }
+
+    public void invalidateTitle(String title) {
+        bookIdsByTitle.invalidate(title);
+    }
+}
@@ -0,0 +1,376 @@
+package org.library.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.library.dto.book.BookImportError;
+import org.library.dto.book.BookImportResponse;
+import org.library.entities.Author;
+import org.library.entities.Book;
+import org.library.entities.CatalogEntityType;
+import org.library.entities.Category;
+import org.library.event.AuthorCreatedEvent;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookSnapshot;
+import org.library.exception.BadRequestException;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.library.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk catalog import. Rows are read as a stream and written in chunks, one transaction per chunk:
+// one query each for existing titles, authors and categories, then every insert of the chunk goes out
+// in JDBC batches. A chunk that fails in the database only fails its own rows.
+@Service
+public class BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_RELEASE_YEAR = 2026;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${library.import.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${library.import.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    public BookImportService(BookRepository bookRepository,
+                             AuthorRepository authorRepository,
+                             CategoryRepository categoryRepository,
+                             CatalogVersions catalogVersions,
+                             CatalogETags catalogETags,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    public BookImportResponse importBooks(DataFormat format, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        Map<String, Integer> columns = format == DataFormat.CSV ? readCsvHeader(reader) : null;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = format == DataFormat.CSV ? 1 : 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.totalRows++;
+            ImportRow row = format == DataFormat.CSV
+                    ? parseCsvRow(lineNumber, line, columns, report)
+                    : parseJsonRow(lineNumber, line, report);
+            if (row == null) {
+                continue;
+            }
+            if (!report.seenTitles.add(row.title())) {
+                report.fail(row, "Duplicate title in upload");
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = report.totalRows * 1000.0 / elapsedMillis;
+        log.info("Imported {} of {} rows in {} ms ({} rows/s)",
+                report.importedBooks, report.totalRows, elapsedMillis, Math.round(rowsPerSecond));
+
+        return new BookImportResponse(
+                report.totalRows,
+                report.importedBooks,
+                report.createdAuthors,
+                report.createdCategories,
+                report.failedRows,
+                report.errors,
+                elapsedMillis,
+                rowsPerSecond
+        );
+    }
+
+    private void importChunk(List<ImportRow> rows, ImportReport report) {
+        List<ImportRow> conflicts = new ArrayList<>();
+        List<Author> createdAuthors = new ArrayList<>();
+        List<Category> createdCategories = new ArrayList<>();
+        List<Book> created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+
+                Set<String> existingTitles = new HashSet<>(bookRepository.findExistingTitles(
+                        rows.stream().map(ImportRow::title).toList()));
+                List<ImportRow> accepted = new ArrayList<>(rows.size());
+                for (ImportRow row : rows) {
+                    if (existingTitles.contains(row.title())) {
+                        conflicts.add(row);
+                    } else {
+                        accepted.add(row);
+                    }
+                }
+
+                Map<String, Author> authors = resolve(accepted, ImportRow::authorName,
+                        authorRepository::findByNameIn, Author::getName, BookImportService::newAuthor, createdAuthors);
+                Map<String, Category> categories = resolve(accepted, ImportRow::categoryName,
+                        categoryRepository::findByNameIn, Category::getName, BookImportService::newCategory, createdCategories);
+                // Change versions for the whole chunk in one round trip
+                Iterator<Long> versions = catalogVersions
+                        .next(createdAuthors.size() + createdCategories.size() + accepted.size())
+                        .iterator();
+                createdAuthors.forEach(author -> author.setChangeVersion(versions.next()));
+                createdCategories.forEach(category -> category.setChangeVersion(versions.next()));
+                authorRepository.saveAll(createdAuthors);
+                categoryRepository.saveAll(createdCategories);
+
+                List<Book> books = new ArrayList<>(accepted.size());
+                for (ImportRow row : accepted) {
+                    Book book = new Book();
+                    book.setTitle(row.title());
+                    book.setReleaseYear(row.releaseYear());
+                    book.setAuthor(authors.get(row.authorName()));
+                    book.setCategory(categories.get(row.categoryName()));
+                    book.setBorrowed(false);
+                    book.setChangeVersion(versions.next());
+                    books.add(book);
+                }
+                bookRepository.saveAll(books);
+                entityManager.flush();
+
+                // Picked up by the after-commit listeners, the same as single creates
+                createdAuthors.forEach(author ->
+                        eventPublisher.publishEvent(new AuthorCreatedEvent(author.getId(), author.getName())));
+                books.forEach(book -> eventPublisher.publishEvent(new BookCreatedEvent(BookSnapshot.of(book))));
+                entityManager.clear();
+                return books;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Import chunk of {} rows failed", rows.size(), e);
+            rows.forEach(row -> report.fail(row, "Could not be stored: " + e.getMostSpecificCause().getMessage()));
+            return;
+        }
+
+        conflicts.forEach(row -> report.fail(row, "Book with the same title already exists"));
+        report.importedBooks += created.size();
+        report.createdAuthors += createdAuthors.size();
+        report.createdCategories += createdCategories.size();
+        createdAuthors.forEach(author -> catalogETags.changed(CatalogEntityType.AUTHOR, author.getId()));
+        createdCategories.forEach(category -> catalogETags.changed(CatalogEntityType.CATEGORY, category.getId()));
+        created.forEach(book -> catalogETags.changed(CatalogEntityType.BOOK, book.getId()));
+    }
+
+    // Looks up every name of the chunk in one query and creates the missing ones
+    private static <E> Map<String, E> resolve(List<ImportRow> rows,
+                                              Function<ImportRow, String> nameOf,
+                                              Function<Collection<String>, List<E>> findByNames,
+                                              Function<E, String> getName,
+                                              Function<String, E> create,
+                                              List<E> created) {
+        Set<String> names = rows.stream().map(nameOf).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (names.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, E> found = findByNames.apply(names).stream()
+                .collect(Collectors.toMap(getName, Function.identity(), (first, second) -> first, HashMap::new));
+        for (String name : names) {
+            if (!found.containsKey(name)) {
+                E entity = create.apply(name);
+                found.put(name, entity);
+                created.add(entity);
+            }
+        }
+        return found;
+    }
+
+    private static Author newAuthor(String name) {
+        Author author = new Author();
+        author.setName(name);
+        return author;
+    }
+
+    private static Category newCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new BadRequestException("CSV upload is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("title", "authorname", "categoryname", "releaseyear")) {
+            if (!columns.containsKey(required)) {
+                throw new BadRequestException("CSV header must contain title, authorName, categoryName and releaseYear");
+            }
+        }
+        return columns;
+    }
+
+    private ImportRow parseCsvRow(long line, String text, Map<String, Integer> columns, ImportReport report) {
+        List<String> fields = parseCsvLine(text);
+        return toRow(line,
+                field(fields, columns.get("title")),
+                field(fields, columns.get("authorname")),
+                field(fields, columns.get("categoryname")),
+                field(fields, columns.get("releaseyear")),
+                report);
+    }
+
+    private ImportRow parseJsonRow(long line, String text, ImportReport report) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (IOException e) {
+            report.fail(line, null, "Malformed JSON");
+            return null;
+        }
+        return toRow(line,
+                node.path("title").asText(null),
+                node.path("authorName").asText(null),
+                node.path("categoryName").asText(null),
+                node.path("releaseYear").asText(null),
+                report);
+    }
+
+    // Same rules as BookRequest validation
+    private ImportRow toRow(long line, String title, String authorName, String categoryName, String releaseYear,
+                            ImportReport report) {
+        if (title == null || title.isBlank()) {
+            report.fail(line, title, "Book title is required");
+            return null;
+        }
+        if (authorName == null || authorName.isBlank()) {
+            report.fail(line, title, "Author name is required");
+            return null;
+        }
+        if (categoryName == null || categoryName.isBlank()) {
+            report.fail(line, title, "Category name is required");
+            return null;
+        }
+        int year;
+        try {
+            year = Integer.parseInt(releaseYear == null ? "" : releaseYear.trim());
+        } catch (NumberFormatException e) {
+            report.fail(line, title, "Release year is required");
+            return null;
+        }
+        if (year < 0 || year > MAX_RELEASE_YEAR) {
+            report.fail(line, title, "Release year must be a valid year");
+            return null;
+        }
+        return new ImportRow(line, title.trim(), authorName.trim(), categoryName.trim(), year);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    // RFC 4180 fields on a single line, as written by the CSV export
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record ImportRow(long line, String title, String authorName, String categoryName, int releaseYear) {
+    }
+
+    private static class ImportReport {
+        private final Set<String> seenTitles = new HashSet<>();
+        private final List<BookImportError> errors = new ArrayList<>();
+        private long totalRows;
+        private long importedBooks;
+        private long createdAuthors;
+        private long createdCategories;
+        private long failedRows;
+
+        private void fail(ImportRow row, String message) {
+            fail(row.line(), row.title(), message);
+        }
+
+        private void fail(long line, String title, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportError(line, title, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.library.service;
+
+import org.library.dto.book.BookResponse;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookDeletedEvent;
+import org.library.event.BookSnapshot;
+import org.library.event.BookUpdatedEvent;
+import org.library.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory trigram index over title, author name and category name used by book search.
+// Candidates come from the shortest posting list and are then checked against every criterion,
+// so results match the LIKE '%x%' semantics of BookRepository.searchBooks.
+@Component
+public class BookSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+    private static final int GRAM_SIZE = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final NavigableSet<Long> EMPTY = new TreeSet<>();
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<Long, IndexedBook> books = new TreeMap<>();
+    private final Map<String, NavigableSet<Long>> titleGrams = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> authorGrams = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> categoryGrams = new HashMap<>();
+    private volatile boolean ready = false;
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            titleGrams.clear();
+            authorGrams.clear();
+            categoryGrams.clear();
+
+            long afterId = 0L;
+            List<BookResponse> batch;
+            do {
+                batch = bookRepository.findPage(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (BookResponse book : batch) {
+                    add(book);
+                    afterId = book.getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+
+            ready = true;
+            log.info("Book search index loaded with {} books", books.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Kept in step after commit, so a rolled back write never reaches the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookCreated(BookCreatedEvent event) {
+        index(event.getBook());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookUpdated(BookUpdatedEvent event) {
+        index(event.getCurrent());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        remove(event.getBook().getId());
+    }
+
+    private void index(BookSnapshot book) {
+        index(new BookResponse(book.getId(), book.getTitle(), book.getAuthorName(), book.getCategoryName(),
+                book.getReleaseYear(), book.isBorrowed()));
+    }
+
+    public void index(BookResponse book) {
+        lock.writeLock().lock();
+        try {
+            remove(book.getId(), books.get(book.getId()));
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            remove(bookId, books.get(bookId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns up to limit matching book ids greater than afterId, in ascending order
+    public List<Long> search(String title, String authorName, String categoryName, Integer releaseYear,
+                             long afterId, int limit) {
+        String titleQuery = normalize(title);
+        String authorQuery = normalize(authorName);
+        String categoryQuery = normalize(categoryName);
+
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> candidates = narrow(null, titleGrams, titleQuery);
+            candidates = narrow(candidates, authorGrams, authorQuery);
+            candidates = narrow(candidates, categoryGrams, categoryQuery);
+
+            Iterable<Long> scan = candidates != null
+                    ? candidates.tailSet(afterId, false)
+                    : books.tailMap(afterId, false).keySet();
+
+            List<Long> result = new ArrayList<>(limit);
+            for (Long id : scan) {
+                IndexedBook book = books.get(id);
+                if (book != null && book.matches(titleQuery, authorQuery, categoryQuery, releaseYear)) {
+                    result.add(id);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(BookResponse book) {
+        IndexedBook indexed = new IndexedBook(
+                book.getId(),
+                normalize(book.getTitle()),
+                normalize(book.getAuthorName()),
+                normalize(book.getCategoryName()),
+                book.getReleaseYear()
+        );
+        books.put(indexed.id, indexed);
+        addGrams(titleGrams, indexed.title, indexed.id);
+        addGrams(authorGrams, indexed.authorName, indexed.id);
+        addGrams(categoryGrams, indexed.categoryName, indexed.id);
+    }
+
+    private void remove(long bookId, IndexedBook indexed) {
+        if (indexed == null) {
+            return;
+        }
+        books.remove(bookId);
+        removeGrams(titleGrams, indexed.title, bookId);
+        removeGrams(authorGrams, indexed.authorName, bookId);
+        removeGrams(categoryGrams, indexed.categoryName, bookId);
+    }
+
+    // Keeps the smallest posting list seen so far; queries shorter than a gram cannot narrow anything
+    private NavigableSet<Long> narrow(NavigableSet<Long> current, Map<String, NavigableSet<Long>> grams, String query) {
+        if (query == null || query.length() < GRAM_SIZE) {
+            return current;
+        }
+        NavigableSet<Long> smallest = current;
+        for (int i = 0; i + GRAM_SIZE <= query.length(); i++) {
+            NavigableSet<Long> postings = grams.getOrDefault(query.substring(i, i + GRAM_SIZE), EMPTY);
+            if (smallest == null || postings.size() < smallest.size()) {
+                smallest = postings;
+            }
+        }
+        return smallest;
+    }
+
+    private static void addGrams(Map<String, NavigableSet<Long>> grams, String value, long bookId) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.computeIfAbsent(value.substring(i, i + GRAM_SIZE), g -> new TreeSet<>()).add(bookId);
+        }
+    }
+
+    private static void removeGrams(Map<String, NavigableSet<Long>> grams, String value, long bookId) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            String gram = value.substring(i, i + GRAM_SIZE);
+            NavigableSet<Long> postings = grams.get(gram);
+            if (postings != null) {
+                postings.remove(bookId);
+                if (postings.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class IndexedBook {
+        private final long id;
+        private final String title;
+        private final String authorName;
+        private final String categoryName;
+        private final int releaseYear;
+
+        private IndexedBook(long id, String title, String authorName, String categoryName, int releaseYear) {
+            this.id = id;
+            this.title = title;
+            this.authorName = authorName;
+            this.categoryName = categoryName;
+            this.releaseYear = releaseYear;
+        }
+
+        private boolean matches(String titleQuery, String authorQuery, String categoryQuery, Integer year) {
+            return contains(title, titleQuery)
+                    && contains(authorName, authorQuery)
+                    && contains(categoryName, categoryQuery)
+                    && (year == null || releaseYear == year);
+        }
+
+        private static boolean contains(String value, String query) {
+            return query == null || (value != null && value.contains(query));
+        }
+    }
+}
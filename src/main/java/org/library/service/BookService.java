@@ -2,30 +2,72 @@ package org.library.service;
 
 import org.library.dto.book.BookRequest;
 import org.library.dto.book.BookResponse;
+import org.library.dto.book.BookSuggestion;
+import org.library.dto.book.RelatedBook;
+import org.library.dto.common.CursorPageResponse;
 import org.library.entities.Author;
 import org.library.entities.Book;
+import org.library.entities.CatalogEntityType;
 import org.library.entities.Category;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookDeletedEvent;
+import org.library.event.BookSnapshot;
+import org.library.event.BookUpdatedEvent;
 import org.library.exception.ConflictException;
 import org.library.exception.ResourceNotFoundException;
 import org.library.repository.AuthorRepository;
 import org.library.repository.BookRepository;
 import org.library.repository.CategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookService {
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final CategoryRepository categoryRepository;
-
-    public BookService(BookRepository bookRepository, AuthorRepository authorRepository, CategoryRepository categoryRepository) {
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestIndex bookSuggestIndex;
+    private final BookCache bookCache;
+    private final CoBorrowIndex coBorrowIndex;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
+    private final ApplicationEventPublisher eventPublisher;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_RELATED = 50;
+
+    public BookService(BookRepository bookRepository,
+                       AuthorRepository authorRepository,
+                       CategoryRepository categoryRepository,
+                       BookSearchIndex bookSearchIndex,
+                       BookSuggestIndex bookSuggestIndex,
+                       BookCache bookCache,
+                       CoBorrowIndex coBorrowIndex,
+                       CatalogVersions catalogVersions,
+                       CatalogETags catalogETags,
+                       ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.categoryRepository = categoryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookSuggestIndex = bookSuggestIndex;
+        this.bookCache = bookCache;
+        this.coBorrowIndex = coBorrowIndex;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public BookResponse createBook(BookRequest bookRequest) {
         if(bookRepository.findByTitle(bookRequest.getTitle()).isPresent()){
             throw new ConflictException("Book with the same title already exists");
@@ -42,87 +84,128 @@ public class BookService {
         book.setAuthor(author);
         book.setCategory(category);
         book.setBorrowed(false);
+        book.setChangeVersion(catalogVersions.next());
 
         Book saved = bookRepository.save(book);
-        return toBookResponse(saved);
+        BookResponse response = toBookResponse(saved);
+        catalogETags.changed(CatalogEntityType.BOOK, saved.getId());
+        eventPublisher.publishEvent(new BookCreatedEvent(BookSnapshot.of(saved)));
+        return response;
 
     }
 
     public BookResponse findBookById(Long bookId) {
-        Book book = bookRepository.findById(bookId)
+        return bookCache.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
-
-        return toBookResponse(book);
     }
 
     public BookResponse findBookByTitle(String title) {
-        Book book = bookRepository.findByTitle(title)
+        return bookCache.findByTitle(title)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
-
-        return toBookResponse(book);
     }
 
-    public List<BookResponse> findBooksByAuthor(Long authorId) {
-        Author author = authorRepository.findById(authorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Author not found"));
+    public CursorPageResponse<BookResponse> findBooksByAuthor(Long authorId, String cursor, int size) {
+        if (!authorRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("Author not found");
+        }
 
-        List<Book> books = bookRepository.findByAuthor(author);
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPageByAuthorId(
+                authorId, CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
 
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
     }
 
-    public List<BookResponse> findBooksByCategory(Long categoryId) {
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+    public CursorPageResponse<BookResponse> findBooksByCategory(Long categoryId, String cursor, int size) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found");
+        }
 
-        List<Book> books = bookRepository.findByCategory(category);
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPageByCategoryId(
+                categoryId, CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
 
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
     }
 
-    public List<BookResponse> findBooksByReleaseYear(int releaseYear) {
-        List<Book> books = bookRepository.findByReleaseYear(releaseYear);
+    public CursorPageResponse<BookResponse> findBooksByReleaseYear(int releaseYear, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPageByReleaseYear(
+                releaseYear, CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
 
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
     }
 
-    public List<BookResponse> searchBooks(String title, String authorName, String categoryName, Integer releaseYear) {
-        List<Book> books = bookRepository.searchBooks(title, authorName, categoryName, releaseYear);
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+    public CursorPageResponse<BookResponse> searchBooks(String title, String authorName, String categoryName,
+                                                        Integer releaseYear, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        long afterId = CursorPageResponse.decodeCursor(cursor);
+
+        // Fall back to the LIKE query until the in-memory index has finished loading
+        if (!bookSearchIndex.isReady()) {
+            List<BookResponse> books = bookRepository.searchBooks(title, authorName, categoryName, releaseYear,
+                    afterId, nextPage(pageSize));
+            return CursorPageResponse.of(books, pageSize, BookResponse::getId);
+        }
+
+        List<Long> bookIds = bookSearchIndex.search(title, authorName, categoryName, releaseYear, afterId, pageSize + 1);
+        List<BookResponse> books = bookIds.isEmpty() ? List.of() : bookRepository.findResponsesByIdIn(bookIds);
+
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
+    }
+
+    public List<BookSuggestion> suggestBooks(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return bookSuggestIndex.suggest(prefix.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
     }
 
-    public List<BookResponse> findBorrowedBooks() {
-        List<Book> books = bookRepository.findByIsBorrowedTrue();
+    public List<RelatedBook> findRelatedBooks(Long bookId, int limit) {
+        findBookById(bookId);
 
-        return books.stream()
-                .map(this::toBookResponse)
+        List<CoBorrowIndex.Related> related =
+                coBorrowIndex.related(bookId, Math.max(1, Math.min(limit, MAX_RELATED)));
+        if (related.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookResponse> books = bookRepository
+                .findResponsesByIdIn(related.stream().map(CoBorrowIndex.Related::bookId).toList())
+                .stream()
+                .collect(Collectors.toMap(BookResponse::getId, Function.identity()));
+
+        // Keeps the index order, books deleted in the meantime are skipped
+        return related.stream()
+                .filter(entry -> books.containsKey(entry.bookId()))
+                .map(entry -> new RelatedBook(books.get(entry.bookId()), entry.count()))
                 .toList();
     }
 
-    public List<BookResponse> findAvailableBooks() {
-        List<Book> books = bookRepository.findByIsBorrowedFalse();
+    public CursorPageResponse<BookResponse> findBorrowedBooks(String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPageByBorrowed(
+                true, CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
 
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
     }
 
-    public List<BookResponse> findAllBooks() {
-        List<Book> books = bookRepository.findAll();
+    public CursorPageResponse<BookResponse> findAvailableBooks(String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPageByBorrowed(
+                false, CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
 
-        return books.stream()
-                .map(this::toBookResponse)
-                .toList();
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
     }
 
+    public CursorPageResponse<BookResponse> findAllBooks(String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        List<BookResponse> books = bookRepository.findPage(
+                CursorPageResponse.decodeCursor(cursor), nextPage(pageSize));
+
+        return CursorPageResponse.of(books, pageSize, BookResponse::getId);
+    }
+
+    @Transactional
     public BookResponse updateBook(Long bookId, BookRequest bookRequest) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
@@ -139,22 +222,45 @@ public class BookService {
         Category category = categoryRepository.findById(bookRequest.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
+        BookSnapshot previous = BookSnapshot.of(book);
         book.setTitle(bookRequest.getTitle());
         book.setReleaseYear(bookRequest.getReleaseYear());
         book.setAuthor(author);
         book.setCategory(category);
+        book.setChangeVersion(catalogVersions.next());
 
         Book saved = bookRepository.save(book);
-        return toBookResponse(saved);
+        BookResponse response = toBookResponse(saved);
+        bookCache.invalidate(bookId);
+        bookCache.invalidateTitle(previous.getTitle());
+        catalogETags.changed(CatalogEntityType.BOOK, bookId);
+        eventPublisher.publishEvent(new BookUpdatedEvent(previous, BookSnapshot.of(saved)));
+        return response;
 
 
     }
 
+    @Transactional
     public void deleteBook(Long bookId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
 
+        BookSnapshot deleted = BookSnapshot.of(book);
         bookRepository.delete(book);
+        catalogVersions.recordDelete(CatalogEntityType.BOOK, bookId);
+        bookCache.invalidate(bookId);
+        bookCache.invalidateTitle(book.getTitle());
+        catalogETags.changed(CatalogEntityType.BOOK, bookId);
+        eventPublisher.publishEvent(new BookDeletedEvent(deleted));
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // One extra row tells us whether there is a next page without a count query
+    private Pageable nextPage(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
     }
 
     private BookResponse toBookResponse(Book book) {
@@ -0,0 +1,129 @@
+package org.library.service;
+
+import org.library.dto.book.BookResponse;
+import org.library.dto.book.BookSuggestion;
+import org.library.entities.Author;
+import org.library.event.AuthorCreatedEvent;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookDeletedEvent;
+import org.library.event.BookUpdatedEvent;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Sorted prefix index over book titles and author names for search box autocomplete.
+// Keys are the lowercased text followed by the id, so a prefix lookup is a single range scan.
+@Component
+public class BookSuggestIndex {
+    public static final String TITLE = "TITLE";
+    public static final String AUTHOR = "AUTHOR";
+    private static final char ID_SEPARATOR = '\u0000';
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    private final ConcurrentSkipListMap<String, BookSuggestion> titles = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, BookSuggestion> authors = new ConcurrentSkipListMap<>();
+    // Current key of each book, so renames and deletes can find the old entry
+    private final Map<Long, String> titleKeys = new ConcurrentHashMap<>();
+
+    public BookSuggestIndex(BookRepository bookRepository, AuthorRepository authorRepository) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long afterId = 0L;
+        List<BookResponse> batch;
+        do {
+            batch = bookRepository.findPage(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (BookResponse book : batch) {
+                putTitle(book.getId(), book.getTitle());
+                afterId = book.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        for (Author author : authorRepository.findAll()) {
+            putAuthor(author.getId(), author.getName());
+        }
+    }
+
+    // Kept in step after commit, so a rolled back write never reaches the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookCreated(BookCreatedEvent event) {
+        putTitle(event.getBook().getId(), event.getBook().getTitle());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookUpdated(BookUpdatedEvent event) {
+        putTitle(event.getCurrent().getId(), event.getCurrent().getTitle());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        removeTitle(event.getBook().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorCreated(AuthorCreatedEvent event) {
+        putAuthor(event.getAuthorId(), event.getName());
+    }
+
+    public synchronized void putTitle(long bookId, String title) {
+        removeTitle(bookId);
+        String key = key(title, bookId);
+        titles.put(key, new BookSuggestion(TITLE, bookId, title));
+        titleKeys.put(bookId, key);
+    }
+
+    public synchronized void removeTitle(long bookId) {
+        String key = titleKeys.remove(bookId);
+        if (key != null) {
+            titles.remove(key);
+        }
+    }
+
+    public void putAuthor(long authorId, String name) {
+        authors.put(key(name, authorId), new BookSuggestion(AUTHOR, authorId, name));
+    }
+
+    // Top-K completions in alphabetical order, titles and authors merged
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        String to = from + Character.MAX_VALUE;
+
+        List<BookSuggestion> result = new ArrayList<>(limit * 2);
+        take(titles.subMap(from, true, to, false), limit, result);
+        take(authors.subMap(from, true, to, false), limit, result);
+
+        result.sort(Comparator.comparing(suggestion -> suggestion.getText().toLowerCase(Locale.ROOT)));
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    private static void take(NavigableMap<String, BookSuggestion> range, int limit, List<BookSuggestion> into) {
+        Iterator<BookSuggestion> iterator = range.values().iterator();
+        for (int i = 0; i < limit && iterator.hasNext(); i++) {
+            into.add(iterator.next());
+        }
+    }
+
+    private static String key(String text, long id) {
+        return text.toLowerCase(Locale.ROOT) + ID_SEPARATOR + id;
+    }
+}
@@ -1,69 +1,135 @@
 package org.library.service;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.library.dto.borrow.BatchBorrowRequest;
+import org.library.dto.borrow.BatchReturnRequest;
 import org.library.dto.borrow.BorrowRequest;
 import org.library.dto.borrow.BorrowResponse;
+import org.library.dto.common.CursorPageResponse;
 import org.library.entities.Book;
 import org.library.entities.BorrowRecord;
+import org.library.entities.CatalogEntityType;
+import org.library.entities.Role;
 import org.library.entities.User;
+import org.library.event.BookAvailableEvent;
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookReturnedEvent;
+import org.library.event.BookSnapshot;
 import org.library.exception.BadRequestException;
 import org.library.exception.ConflictException;
 import org.library.exception.ResourceNotFoundException;
 import org.library.repository.BookRepository;
 import org.library.repository.BorrowRecordRepository;
 import org.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BorrowService {
     private final BorrowRecordRepository borrowRecordRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
-    private static final int MAX_BORROWED_BOOKS = 5;
-
-    public BorrowService(BorrowRecordRepository borrowRecordRepository, BookRepository bookRepository, UserRepository userRepository) {
+    private final BookCache bookCache;
+    private final ReservationService reservationService;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${library.borrow.max-active.user:5}")
+    private int maxActiveBorrowsUser;
+    @Value("${library.borrow.max-active.admin:5}")
+    private int maxActiveBorrowsAdmin;
+    @Value("${library.borrow.loan-days:14}")
+    private int loanDays;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    public BorrowService(BorrowRecordRepository borrowRecordRepository,
+                         BookRepository bookRepository,
+                         UserRepository userRepository,
+                         BookCache bookCache,
+                         ReservationService reservationService,
+                         CatalogVersions catalogVersions,
+                         CatalogETags catalogETags,
+                         EntityManager entityManager,
+                         ApplicationEventPublisher eventPublisher) {
         this.borrowRecordRepository = borrowRecordRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.bookCache = bookCache;
+        this.reservationService = reservationService;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public BorrowResponse borrowBook(BorrowRequest borrowRequest) {
 
         User user = getCurrentUser();
 
-        // Check if user has reached max borrow limit
-        int activeBorrows = borrowRecordRepository.countByUserAndIsReturnedFalse(user);
-        if (activeBorrows >= MAX_BORROWED_BOOKS) {
-            throw new BadRequestException("Maximum active borrow limit of " + MAX_BORROWED_BOOKS + " books reached");
+        // Take a borrow slot, the guarded counter keeps concurrent borrows by the same user under the limit
+        int maxActiveBorrows = maxActiveBorrows(user.getRole());
+        if (userRepository.incrementActiveBorrows(user.getId(), maxActiveBorrows) == 0) {
+            throw new BadRequestException("Maximum active borrow limit of " + maxActiveBorrows + " books reached");
         }
 
-        // Get book
-        Book book = bookRepository.findById(borrowRequest.getBookId())
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
-
-        // Check if book is already borrowed
-        if (book.isBorrowed()) {
-            throw new ConflictException("Book is already borrowed");
+        // Claim the book with a single conditional update, the affected row count decides who wins
+        Long bookId = borrowRequest.getBookId();
+        catalogVersions.begin();
+        boolean fromHold = false;
+        if (bookRepository.markBorrowed(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book not found");
+            }
+            // A book held for this user after a return is still flagged, collecting the hold takes it over
+            if (!reservationService.collectHold(user.getId(), bookId)) {
+                throw new ConflictException("Book is already borrowed, reserve it to be next in line");
+            }
+            fromHold = true;
+        } else {
+            reservationService.cancelWaiting(user.getId(), List.of(bookId));
         }
 
+        Book book = bookRepository.findWithAuthorAndCategoryById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+
         // Create borrow record
         BorrowRecord borrowRecord = new BorrowRecord();
         borrowRecord.setBook(book);
         borrowRecord.setUser(user);
         borrowRecord.setBorrowDate(LocalDate.now());
+        borrowRecord.setDueDate(borrowRecord.getBorrowDate().plusDays(loanDays));
         borrowRecord.setReturned(false);
 
-        // Update book status
-        book.setBorrowed(true);
-        bookRepository.save(book);
-
         BorrowRecord saved = borrowRecordRepository.save(borrowRecord);
+        bookCache.invalidate(bookId);
+        catalogETags.changed(CatalogEntityType.BOOK, bookId);
+        eventPublisher.publishEvent(
+                new BookBorrowedEvent(BookSnapshot.of(book), user.getId(), saved.getId(), saved.getBorrowDate(), fromHold));
         return toBorrowResponse(saved);
     }
 
+    @Transactional
     public BorrowResponse returnBook(Long borrowRecordId) {
         BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
                 .orElseThrow(() -> new ResourceNotFoundException("Borrow record not found"));
@@ -75,22 +141,130 @@ public class BorrowService {
             throw new BadRequestException("You can only return your own borrowed books");
         }
 
-        // Check if already returned
-        if (borrowRecord.isReturned()) {
+        // Close the record only if it is still open, so concurrent returns cannot both succeed
+        LocalDate returnDate = LocalDate.now();
+        if (borrowRecordRepository.markReturned(borrowRecordId, returnDate) == 0) {
             throw new ConflictException("Book is already returned");
         }
 
-        // Update borrow record
-        borrowRecord.setReturned(true);
-        borrowRecord.setReturnDate(LocalDate.now());
-
-        // Update book status
+        // Hand the book to the next reservation or make it available, and free the borrow slot
         Book book = borrowRecord.getBook();
-        book.setBorrowed(false);
-        bookRepository.save(book);
+        reservationService.releaseOrHandOff(book.getId());
+        userRepository.decrementActiveBorrows(user.getId());
+        eventPublisher.publishEvent(
+                new BookReturnedEvent(BookSnapshot.of(book), user.getId(), borrowRecordId, returnDate));
 
-        BorrowRecord saved = borrowRecordRepository.save(borrowRecord);
-        return toBorrowResponse(saved);
+        return toReturnedResponse(borrowRecord, returnDate);
+    }
+
+    // Checks out a whole cart or nothing: one limit check for all books, one update to claim the free ones,
+    // holds collected for the rest and the borrow records inserted as a single JDBC batch
+    @Transactional
+    public List<BorrowResponse> borrowBooks(BatchBorrowRequest batchBorrowRequest) {
+        Set<Long> bookIds = distinct(batchBorrowRequest.getBookIds(), "Each book can only be borrowed once");
+        User user = getCurrentUser();
+
+        int maxActiveBorrows = maxActiveBorrows(user.getRole());
+        if (userRepository.addActiveBorrows(user.getId(), bookIds.size(), maxActiveBorrows) == 0) {
+            throw new BadRequestException("Borrowing " + bookIds.size() + " books would exceed the active borrow limit of "
+                    + maxActiveBorrows + " books");
+        }
+
+        // Books held for this user are still flagged and are collected, every other book has to flip,
+        // otherwise the exception rolls back the ones that did
+        Set<Long> heldBookIds = reservationService.heldFor(user.getId(), bookIds);
+        List<Long> freeBookIds = bookIds.stream()
+                .filter(bookId -> !heldBookIds.contains(bookId))
+                .toList();
+        catalogVersions.begin();
+        if (!freeBookIds.isEmpty() && bookRepository.markAllBorrowed(freeBookIds) != freeBookIds.size()) {
+            List<Long> missing = missingIds(freeBookIds, bookRepository.findAllById(freeBookIds), Book::getId);
+            if (!missing.isEmpty()) {
+                throw new ResourceNotFoundException("Books not found: " + missing);
+            }
+            throw new ConflictException("One or more books are already borrowed");
+        }
+        for (Long bookId : heldBookIds) {
+            if (!reservationService.collectHold(user.getId(), bookId)) {
+                throw new ConflictException("The hold on book " + bookId + " expired before it was collected");
+            }
+        }
+        reservationService.cancelWaiting(user.getId(), freeBookIds);
+
+        Map<Long, Book> books = bookRepository.findAllWithAuthorAndCategoryByIdIn(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        LocalDate borrowDate = LocalDate.now();
+        List<BorrowRecord> borrowRecords = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            BorrowRecord borrowRecord = new BorrowRecord();
+            borrowRecord.setBook(books.get(bookId));
+            borrowRecord.setUser(user);
+            borrowRecord.setBorrowDate(borrowDate);
+            borrowRecord.setDueDate(borrowDate.plusDays(loanDays));
+            borrowRecord.setReturned(false);
+            borrowRecords.add(borrowRecord);
+        }
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(borrowRecords.size());
+        List<BorrowRecord> saved = borrowRecordRepository.saveAll(borrowRecords);
+        for (BorrowRecord borrowRecord : saved) {
+            Book book = borrowRecord.getBook();
+            bookCache.invalidate(book.getId());
+            catalogETags.changed(CatalogEntityType.BOOK, book.getId());
+            eventPublisher.publishEvent(new BookBorrowedEvent(
+                    BookSnapshot.of(book), user.getId(), borrowRecord.getId(), borrowDate,
+                    heldBookIds.contains(book.getId())));
+        }
+        return saved.stream()
+                .map(this::toBorrowResponse)
+                .toList();
+    }
+
+    @Transactional
+    public List<BorrowResponse> returnBooks(BatchReturnRequest batchReturnRequest) {
+        Set<Long> borrowRecordIds = distinct(batchReturnRequest.getBorrowRecordIds(), "Each borrow record can only be returned once");
+        User user = getCurrentUser();
+
+        List<BorrowRecord> borrowRecords = borrowRecordRepository.findAllWithBookByIdIn(borrowRecordIds);
+        List<Long> missing = missingIds(borrowRecordIds, borrowRecords, BorrowRecord::getId);
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Borrow records not found: " + missing);
+        }
+        for (BorrowRecord borrowRecord : borrowRecords) {
+            if (!borrowRecord.getUser().getId().equals(user.getId())) {
+                throw new BadRequestException("You can only return your own borrowed books");
+            }
+        }
+
+        LocalDate returnDate = LocalDate.now();
+        if (borrowRecordRepository.markAllReturned(borrowRecordIds, user.getId(), returnDate) != borrowRecordIds.size()) {
+            throw new ConflictException("One or more books are already returned");
+        }
+
+        // Books with a reservation queue are held for the next patron, the rest are freed in one update
+        List<Long> releasedBookIds = borrowRecords.stream()
+                .map(borrowRecord -> borrowRecord.getBook().getId())
+                .filter(bookId -> !reservationService.handOff(bookId))
+                .toList();
+        if (!releasedBookIds.isEmpty()) {
+            catalogVersions.begin();
+            bookRepository.markAllReturned(releasedBookIds);
+            for (Long bookId : releasedBookIds) {
+                catalogETags.changed(CatalogEntityType.BOOK, bookId);
+                eventPublisher.publishEvent(new BookAvailableEvent(bookId));
+            }
+        }
+        userRepository.removeActiveBorrows(user.getId(), borrowRecords.size());
+
+        for (BorrowRecord borrowRecord : borrowRecords) {
+            Book book = borrowRecord.getBook();
+            bookCache.invalidate(book.getId());
+            eventPublisher.publishEvent(
+                    new BookReturnedEvent(BookSnapshot.of(book), user.getId(), borrowRecord.getId(), returnDate));
+        }
+        return borrowRecords.stream()
+                .map(borrowRecord -> toReturnedResponse(borrowRecord, returnDate))
+                .toList();
     }
 
     public BorrowResponse getBorrowRecordById(Long borrowRecordId) {
@@ -125,6 +299,17 @@ public class BorrowService {
                 .toList();
     }
 
+    public CursorPageResponse<BorrowResponse> getOverdueBorrows(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<BorrowResponse> borrows = borrowRecordRepository.findOverduePage(
+                        CursorPageResponse.decodeCursor(cursor), PageRequest.of(0, pageSize + 1))
+                .stream()
+                .map(this::toBorrowResponse)
+                .toList();
+
+        return CursorPageResponse.of(borrows, pageSize, BorrowResponse::getId);
+    }
+
     public List<BorrowResponse> getAllReturnedBorrows() {
         List<BorrowRecord> borrowRecords = borrowRecordRepository.findByIsReturnedTrue();
         return borrowRecords.stream()
@@ -153,12 +338,52 @@ public class BorrowService {
     }
 
 
+    // Counters start from the real number of open borrows, including records created before the column existed
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcileActiveBorrowCounts() {
+        userRepository.recomputeActiveBorrowCounts();
+    }
+
+    // Records from before due dates existed get the current loan period
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillDueDates() {
+        borrowRecordRepository.backfillDueDates(loanDays);
+    }
+
+    private static Set<Long> distinct(List<Long> ids, String duplicateMessage) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        if (distinct.size() != ids.size()) {
+            throw new BadRequestException(duplicateMessage);
+        }
+        return distinct;
+    }
+
+    private static <T> List<Long> missingIds(Collection<Long> ids, List<T> found, Function<T, Long> idOf) {
+        Set<Long> foundIds = found.stream().map(idOf).collect(Collectors.toSet());
+        return ids.stream().filter(id -> !foundIds.contains(id)).toList();
+    }
+
+    private int maxActiveBorrows(Role role) {
+        return role == Role.ADMIN ? maxActiveBorrowsAdmin : maxActiveBorrowsUser;
+    }
+
     private User getCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
     }
 
+    // The conditional update already closed the record, the managed entity stays untouched so that
+    // the flush does not write the whole row back over columns changed since it was read
+    private BorrowResponse toReturnedResponse(BorrowRecord borrowRecord, LocalDate returnDate) {
+        BorrowResponse response = toBorrowResponse(borrowRecord);
+        response.setReturned(true);
+        response.setReturnDate(returnDate);
+        return response;
+    }
+
     private BorrowResponse toBorrowResponse(BorrowRecord borrowRecord) {
         return new BorrowResponse(
                 borrowRecord.getId(),
@@ -167,6 +392,7 @@ public class BorrowService {
                 borrowRecord.getUser().getId(),
                 borrowRecord.getUser().getName(),
                 borrowRecord.getBorrowDate(),
+                borrowRecord.getDueDate(),
                 borrowRecord.getReturnDate(),
                 borrowRecord.isReturned()
         );
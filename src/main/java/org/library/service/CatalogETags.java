@@ -0,0 +1,74 @@
+package org.library.service;
+
+import org.library.entities.CatalogEntityType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Strong ETags for catalog reads, built from version counters kept in memory so a conditional GET is
+// answered without a query. Each entity type has one counter for its collection and a fixed array of
+// striped counters for single entries: ids sharing a stripe now and then invalidate each other, which only
+// costs a full response. Counters restart at zero, so the boot time is part of every tag.
+@Component
+public class CatalogETags {
+    private static final int STRIPES = 4096;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<CatalogEntityType, Counters> counters = new EnumMap<>(CatalogEntityType.class);
+
+    public CatalogETags() {
+        for (CatalogEntityType type : CatalogEntityType.values()) {
+            counters.put(type, new Counters());
+        }
+    }
+
+    public String entityTag(CatalogEntityType type, long id) {
+        return name(type) + "-" + id + "-" + epoch + "-" + counters.get(type).entries.get(stripe(id));
+    }
+
+    public String collectionTag(CatalogEntityType type) {
+        return name(type) + "s-" + epoch + "-" + counters.get(type).collection.get();
+    }
+
+    // Bumped once the transaction has completed, after the caches dropped their entries in afterCommit,
+    // so a response built from the old state can never carry the new tag
+    public void changed(CatalogEntityType type, long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(type, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    bump(type, id);
+                }
+            }
+        });
+    }
+
+    private void bump(CatalogEntityType type, long id) {
+        Counters typeCounters = counters.get(type);
+        typeCounters.entries.incrementAndGet(stripe(id));
+        typeCounters.collection.incrementAndGet();
+    }
+
+    private static int stripe(long id) {
+        return (int) Math.floorMod(id, (long) STRIPES);
+    }
+
+    private static String name(CatalogEntityType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Counters {
+        private final AtomicLong collection = new AtomicLong();
+        private final AtomicLongArray entries = new AtomicLongArray(STRIPES);
+    }
+}
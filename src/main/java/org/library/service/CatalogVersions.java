@@ -0,0 +1,111 @@
+package org.library.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.library.entities.CatalogEntityType;
+import org.library.entities.CatalogTombstone;
+import org.library.repository.CatalogTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Change versions for books, authors and categories, all drawn from one database sequence so every change
+// gets a distinct, increasing version. Sequence values are handed out before commit, so a transaction can
+// commit a lower version after a higher one is visible. Each writing transaction therefore registers a floor
+// taken before any of its versions, and sync only reads up to just below the oldest open floor, which means
+// a mirror never moves its cursor past a change that is still about to land.
+@Component
+public class CatalogVersions {
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersions.class);
+    private static final String SEQUENCE = "catalog_change_seq";
+    private static final List<String> TABLES = List.of("authors", "categories", "books");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogTombstoneRepository tombstoneRepository;
+    private final NavigableSet<Long> openFloors = new ConcurrentSkipListSet<>();
+
+    // Depends on the entity manager factory so the change_version columns exist by now
+    public CatalogVersions(JdbcTemplate jdbcTemplate,
+                           CatalogTombstoneRepository tombstoneRepository,
+                           EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tombstoneRepository = tombstoneRepository;
+    }
+
+    // Rows written before versioning existed get a version once, so a full sync from 0 still sees them
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+        for (String table : TABLES) {
+            int updated = jdbcTemplate.update("UPDATE " + table + " SET change_version = nextval('" + SEQUENCE + "') " +
+                    "WHERE change_version IS NULL");
+            if (updated > 0) {
+                log.info("Assigned change versions to {} existing rows in {}", updated, table);
+            }
+        }
+    }
+
+    // Must be called in the writing transaction before any version is taken, including the ones that
+    // repository updates draw from the sequence themselves
+    public void begin() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Catalog changes must run in a transaction");
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        Long floor = nextValue();
+        openFloors.add(floor);
+        TransactionSynchronizationManager.bindResource(this, floor);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersions.this);
+                openFloors.remove(floor);
+            }
+        });
+    }
+
+    public long next() {
+        begin();
+        return nextValue();
+    }
+
+    // A block of versions in one round trip, for bulk writes
+    public List<Long> next(int count) {
+        begin();
+        return jdbcTemplate.queryForList(
+                "SELECT nextval('" + SEQUENCE + "') FROM generate_series(1, ?)", Long.class, count);
+    }
+
+    public void recordDelete(CatalogEntityType type, Long id) {
+        CatalogTombstone tombstone = new CatalogTombstone();
+        tombstone.setEntityType(type);
+        tombstone.setEntityId(id);
+        tombstone.setChangeVersion(next());
+        tombstone.setDeletedAt(LocalDateTime.now());
+        tombstoneRepository.save(tombstone);
+    }
+
+    // Highest version below which every change is committed or rolled back. The sequence is read before
+    // the floors: a transaction that registers afterwards only takes versions above the value read.
+    public long safeVersion() {
+        Long last = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM " + SEQUENCE, Long.class);
+        long safe = last == null ? 0 : last;
+        Long oldestFloor = openFloors.ceiling(Long.MIN_VALUE);
+        return oldestFloor == null ? safe : Math.min(safe, oldestFloor - 1);
+    }
+
+    private Long nextValue() {
+        return jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+    }
+}
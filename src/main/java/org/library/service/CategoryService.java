@@ -3,30 +3,40 @@ package org.library.service;
 
 import org.library.dto.category.CategoryRequest;
 import org.library.dto.category.CategoryResponse;
+import org.library.entities.CatalogEntityType;
 import org.library.entities.Category;
 import org.library.exception.ConflictException;
 import org.library.exception.ResourceNotFoundException;
 import org.library.repository.CategoryRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
 
-    public CategoryService(CategoryRepository categoryRepository){
+    public CategoryService(CategoryRepository categoryRepository, CatalogVersions catalogVersions,
+                           CatalogETags catalogETags){
         this.categoryRepository = categoryRepository;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
     }
 
+    @Transactional
     public CategoryResponse createCategory(CategoryRequest categoryRequest){
         if(categoryRepository.findByName(categoryRequest.getName()).isPresent()){
             throw new ConflictException("Category with the same name already exists");
         }
         Category category = new Category();
         category.setName(categoryRequest.getName());
+        category.setChangeVersion(catalogVersions.next());
 
         Category saved = categoryRepository.save(category);
+        catalogETags.changed(CatalogEntityType.CATEGORY, saved.getId());
         return toCategoryResponse(saved);
     }
 
@@ -0,0 +1,248 @@
+package org.library.service;
+
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookDeletedEvent;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.UserBookPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// "Readers also borrowed": for every book, how many users borrowed it together with each other book.
+// Rows are sparse and pruned to the strongest neighbours once they grow past twice the kept size,
+// and only the most recent distinct books of each user are paired, which bounds memory and update cost.
+// A pruned pair that comes back starts counting again, so counts are lower bounds for weak pairs.
+// Histories are kept for the most recently active readers only; a reader who was evicted starts pairing
+// again from their next borrow.
+@Component
+public class CoBorrowIndex {
+    private static final Logger log = LoggerFactory.getLogger(CoBorrowIndex.class);
+    private static final Comparator<Related> BY_COUNT =
+            Comparator.comparingInt((Related related) -> related.count()).reversed()
+                    .thenComparingLong(Related::bookId);
+    private static final int INITIAL_HISTORY_SIZE = 4;
+
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${library.related.neighbours-per-book:50}")
+    private int neighboursPerBook;
+    @Value("${library.related.history-per-user:100}")
+    private int historyPerUser;
+    @Value("${library.related.max-readers:100000}")
+    private int maxReaders;
+
+    private Graph graph = new Graph();
+    // Changes that arrive while a rebuild streams the table, replayed onto the new graph before the swap
+    private List<Consumer<Graph>> missedDuringRebuild;
+
+    public CoBorrowIndex(BorrowRecordRepository borrowRecordRepository) {
+        this.borrowRecordRepository = borrowRecordRepository;
+    }
+
+    // Single pass over distinct user/book pairs ordered by user, built into a fresh graph while reads keep
+    // using the old one; the write lock is only held for the swap
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            missedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Graph rebuilt = new Graph();
+        try (Stream<UserBookPair> pairs = borrowRecordRepository.streamUserBookPairs()) {
+            pairs.forEach(pair -> rebuilt.addBorrow(pair.getUserId(), pair.getBookId()));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                missedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Borrows already in the stream are skipped by the history check, deletes are idempotent
+            for (Consumer<Graph> missed : missedDuringRebuild) {
+                missed.accept(rebuilt);
+            }
+            missedDuringRebuild = null;
+            graph = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Co-borrow index loaded for {} books and {} readers", rebuilt.neighbours.size(), rebuilt.histories.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        long userId = event.getUserId();
+        long bookId = event.getBook().getId();
+        apply(target -> target.addBorrow(userId, bookId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        long bookId = event.getBook().getId();
+        apply(target -> target.removeBook(bookId));
+    }
+
+    // Strongest neighbours of a book, best first
+    public List<Related> related(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongIntMap row = graph.neighbours.get(bookId);
+            if (row == null) {
+                return List.of();
+            }
+            List<Related> related = new ArrayList<>(row.size());
+            row.forEach((otherId, count) -> related.add(new Related(otherId, count)));
+            related.sort(BY_COUNT);
+            return related.size() > limit ? List.copyOf(related.subList(0, limit)) : related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Graph> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(graph);
+            if (missedDuringRebuild != null) {
+                missedDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public record Related(long bookId, int count) {
+    }
+
+    // Neighbour rows and reader histories, swapped as a whole on rebuild
+    private class Graph {
+        private final Map<Long, LongIntMap> neighbours = new HashMap<>();
+        // Access ordered, so the least recently active reader is evicted first
+        private final Map<Long, UserHistory> histories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserHistory> eldest) {
+                return size() > maxReaders;
+            }
+        };
+
+        private void addBorrow(long userId, long bookId) {
+            UserHistory history = histories.computeIfAbsent(userId, id -> new UserHistory(historyPerUser));
+            if (history.contains(bookId)) {
+                return;
+            }
+            for (int i = 0; i < history.size; i++) {
+                long otherId = history.books[i];
+                increment(bookId, otherId);
+                increment(otherId, bookId);
+            }
+            history.add(bookId);
+        }
+
+        private void removeBook(long bookId) {
+            LongIntMap row = neighbours.remove(bookId);
+            if (row != null) {
+                row.forEach((otherId, count) -> {
+                    LongIntMap otherRow = neighbours.get(otherId);
+                    if (otherRow != null) {
+                        otherRow.remove(bookId);
+                    }
+                });
+            }
+            histories.values().forEach(history -> history.remove(bookId));
+        }
+
+        private void increment(long bookId, long otherId) {
+            int capacity = neighboursPerBook * 2;
+            LongIntMap row = neighbours.computeIfAbsent(bookId, id -> new LongIntMap(capacity));
+            if (row.size() >= capacity && row.get(otherId) == 0) {
+                row = prune(row);
+                neighbours.put(bookId, row);
+            }
+            row.increment(otherId, 1);
+        }
+
+        private LongIntMap prune(LongIntMap row) {
+            List<Related> entries = new ArrayList<>(row.size());
+            row.forEach((otherId, count) -> entries.add(new Related(otherId, count)));
+            entries.sort(BY_COUNT);
+
+            LongIntMap pruned = new LongIntMap(neighboursPerBook * 2);
+            for (Related entry : entries.subList(0, Math.min(neighboursPerBook, entries.size()))) {
+                pruned.increment(entry.bookId(), entry.count());
+            }
+            return pruned;
+        }
+    }
+
+    // The most recent distinct books of one user, oldest overwritten first. Starts small and doubles up to
+    // the cap, most readers only ever borrow a handful of books.
+    private static class UserHistory {
+        private final int capacity;
+        private long[] books;
+        private int size;
+        private int next;
+
+        private UserHistory(int capacity) {
+            this.capacity = capacity;
+            this.books = new long[Math.min(INITIAL_HISTORY_SIZE, capacity)];
+        }
+
+        private boolean contains(long bookId) {
+            for (int i = 0; i < size; i++) {
+                if (books[i] == bookId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(long bookId) {
+            // Below the cap the entries are packed with next == size, so growing keeps their order
+            if (size == books.length && books.length < capacity) {
+                books = Arrays.copyOf(books, Math.min(books.length * 2, capacity));
+            }
+            books[next] = bookId;
+            next = (next + 1) % books.length;
+            size = Math.min(size + 1, books.length);
+        }
+
+        private void remove(long bookId) {
+            for (int i = 0; i < size; i++) {
+                if (books[i] == bookId) {
+                    // Keep the live entries packed at the front, the ring restarts after them
+                    books[i] = books[size - 1];
+                    size--;
+                    next = size;
+                    return;
+                }
+            }
+        }
+    }
+}
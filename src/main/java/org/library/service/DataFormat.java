@@ -0,0 +1,46 @@
+package org.library.service;
+
+import org.library.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+// Line oriented formats accepted by bulk imports and produced by exports
+public enum DataFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static DataFormat parse(String format) {
+        try {
+            return DataFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Format must be 'ndjson' or 'csv'");
+        }
+    }
+
+    public static DataFormat fromContentType(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        for (DataFormat format : values()) {
+            if (MediaType.parseMediaType(format.contentType).includes(mediaType)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Content type must be text/csv or application/x-ndjson");
+    }
+}
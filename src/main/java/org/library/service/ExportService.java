@@ -0,0 +1,148 @@
+package org.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.library.dto.book.BookResponse;
+import org.library.dto.borrow.BorrowResponse;
+import org.library.entities.Book;
+import org.library.entities.BorrowRecord;
+import org.library.repository.BookRepository;
+import org.library.repository.BorrowRecordRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Streams the catalog and borrow history straight from a database cursor to the response.
+// The persistence context is cleared after every chunk, so memory stays flat however many rows there are,
+// and a slow client simply blocks the writes.
+@Service
+public class ExportService {
+    private static final int CHUNK_SIZE = 500;
+    private static final List<String> BOOK_COLUMNS =
+            List.of("id", "title", "authorName", "categoryName", "releaseYear", "borrowed");
+    private static final List<String> BORROW_COLUMNS =
+            List.of("id", "bookId", "bookTitle", "userId", "userName", "borrowDate", "dueDate", "returnDate", "returned");
+
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(BookRepository bookRepository,
+                         BorrowRecordRepository borrowRecordRepository,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBooks(DataFormat format, OutputStream out) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAllWithAuthorAndCategory()) {
+            write(format, BOOK_COLUMNS, books.iterator(), this::toBookRow, ExportService::bookValues, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBorrows(DataFormat format, OutputStream out) throws IOException {
+        try (Stream<BorrowRecord> records = borrowRecordRepository.streamAllWithBookAndUser()) {
+            write(format, BORROW_COLUMNS, records.iterator(), this::toBorrowRow, ExportService::borrowValues, out);
+        }
+    }
+
+    private <T, R> void write(DataFormat format, List<String> columns, Iterator<T> rows, Function<T, R> toRow,
+                              Function<R, List<?>> toCsvValues, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            writeCsvLine(writer, columns);
+        }
+
+        int written = 0;
+        while (rows.hasNext()) {
+            R row = toRow.apply(rows.next());
+            if (format == DataFormat.CSV) {
+                writeCsvLine(writer, toCsvValues.apply(row));
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+
+            if (++written % CHUNK_SIZE == 0) {
+                writer.flush();
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+    }
+
+    private BookResponse toBookRow(Book book) {
+        return new BookResponse(
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor().getName(),
+                book.getCategory().getName(),
+                book.getReleaseYear(),
+                book.isBorrowed()
+        );
+    }
+
+    private BorrowResponse toBorrowRow(BorrowRecord borrowRecord) {
+        return new BorrowResponse(
+                borrowRecord.getId(),
+                borrowRecord.getBook().getId(),
+                borrowRecord.getBook().getTitle(),
+                borrowRecord.getUser().getId(),
+                borrowRecord.getUser().getName(),
+                borrowRecord.getBorrowDate(),
+                borrowRecord.getDueDate(),
+                borrowRecord.getReturnDate(),
+                borrowRecord.isReturned()
+        );
+    }
+
+    private static List<?> bookValues(BookResponse book) {
+        return Arrays.asList(book.getId(), book.getTitle(), book.getAuthorName(), book.getCategoryName(),
+                book.getReleaseYear(), book.isBorrowed());
+    }
+
+    // Arrays.asList because returnDate is null for open borrows
+    private static List<?> borrowValues(BorrowResponse borrow) {
+        return Arrays.asList(borrow.getId(), borrow.getBookId(), borrow.getBookTitle(), borrow.getUserId(),
+                borrow.getUserName(), borrow.getBorrowDate(), borrow.getDueDate(), borrow.getReturnDate(),
+                borrow.isReturned());
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvEscape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,100 @@
+package org.library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.library.dto.statistics.AuthorStatistics;
+import org.library.dto.statistics.BookStatistics;
+import org.library.dto.statistics.CategoryStatistics;
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookSnapshot;
+import org.library.repository.BorrowRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+// Fixed-memory approximate top lists for the statistics dashboard, one Space-Saving sketch
+// per dimension. Seeded at startup with the exact top entries, then updated on every borrow.
+@Component
+public class HeavyHittersTracker {
+
+    private final BorrowRecordRepository borrowRecordRepository;
+
+    @Value("${library.statistics.sketch.capacity:1000}")
+    private int capacity;
+
+    private SpaceSavingSketch<BookLabel> books;
+    private SpaceSavingSketch<String> authors;
+    private SpaceSavingSketch<String> categories;
+
+    public HeavyHittersTracker(BorrowRecordRepository borrowRecordRepository) {
+        this.borrowRecordRepository = borrowRecordRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.books = new SpaceSavingSketch<>(capacity);
+        this.authors = new SpaceSavingSketch<>(capacity);
+        this.categories = new SpaceSavingSketch<>(capacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        books.clear();
+        authors.clear();
+        categories.clear();
+
+        PageRequest seed = PageRequest.of(0, capacity);
+        for (BookStatistics book : borrowRecordRepository.findMostBorrowedBooks(seed)) {
+            books.offer(book.getBookId(), new BookLabel(book.getBookTitle(), book.getAuthorName()), book.getBorrowCount());
+        }
+        for (AuthorStatistics author : borrowRecordRepository.findPopularAuthors(seed)) {
+            authors.offer(author.getAuthorId(), author.getAuthorName(), author.getBorrowCount());
+        }
+        for (CategoryStatistics category : borrowRecordRepository.findPopularCategories(seed)) {
+            categories.offer(category.getCategoryId(), category.getCategoryName(), category.getBorrowCount());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookBorrowed(BookBorrowedEvent event) {
+        BookSnapshot book = event.getBook();
+        books.offer(book.getId(), new BookLabel(book.getTitle(), book.getAuthorName()), 1);
+        authors.offer(book.getAuthorId(), book.getAuthorName(), 1);
+        categories.offer(book.getCategoryId(), book.getCategoryName(), 1);
+    }
+
+    public synchronized List<SpaceSavingSketch.Entry<BookLabel>> topBooks(int limit) {
+        return books.top(limit);
+    }
+
+    public synchronized List<SpaceSavingSketch.Entry<String>> topAuthors(int limit) {
+        return authors.top(limit);
+    }
+
+    public synchronized List<SpaceSavingSketch.Entry<String>> topCategories(int limit) {
+        return categories.top(limit);
+    }
+
+    public synchronized long bookErrorBound() {
+        return books.getErrorBound();
+    }
+
+    public synchronized long authorErrorBound() {
+        return authors.getErrorBound();
+    }
+
+    public synchronized long categoryErrorBound() {
+        return categories.getErrorBound();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public record BookLabel(String title, String authorName) {
+    }
+}
@@ -0,0 +1,92 @@
+package org.library.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.library.event.BorrowOverdueEvent;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.OverdueRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Flags loans that went past their due date. Flagged records drop out of the (is_returned, is_overdue, due_date)
+// index range the scan reads, so each run only touches the loans that crossed the due date since the last one,
+// however many open or old loans there are. Every loan is flagged, and its event published, exactly once.
+@Component
+public class OverdueScanner {
+    private static final Logger log = LoggerFactory.getLogger(OverdueScanner.class);
+
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter overdueCounter;
+
+    @Value("${library.overdue.batch-size:500}")
+    private int batchSize;
+
+    public OverdueScanner(BorrowRecordRepository borrowRecordRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.overdueCounter = meterRegistry.counter("library.borrows.overdue");
+    }
+
+    @Scheduled(fixedDelayString = "${library.overdue.check-ms:300000}")
+    public void scan() {
+        LocalDate today = LocalDate.now();
+        long flagged = 0;
+        Batch batch;
+        // One transaction per batch, so a long backlog after downtime never holds locks for long
+        do {
+            batch = transactionTemplate.execute(status -> flagBatch(today));
+            flagged += batch.flagged();
+        } while (batch.read() == batchSize);
+
+        if (flagged > 0) {
+            overdueCounter.increment(flagged);
+            log.info("Flagged {} newly overdue borrows", flagged);
+        }
+    }
+
+    private Batch flagBatch(LocalDate today) {
+        List<OverdueRef> loans = borrowRecordRepository.findNewlyOverdue(today, PageRequest.of(0, batchSize));
+        if (loans.isEmpty()) {
+            return new Batch(0, 0);
+        }
+        List<Long> ids = loans.stream().map(OverdueRef::getId).toList();
+        int flagged = borrowRecordRepository.markAllOverdue(ids);
+        if (flagged == ids.size()) {
+            loans.forEach(this::publish);
+        } else {
+            // Some were returned in the meantime, only the ones that got the flag are announced
+            Set<Long> stillOpen = new HashSet<>(borrowRecordRepository.findOpenOverdueIdsIn(ids));
+            loans.stream()
+                    .filter(loan -> stillOpen.contains(loan.getId()))
+                    .forEach(this::publish);
+        }
+        return new Batch(loans.size(), flagged);
+    }
+
+    private void publish(OverdueRef loan) {
+        eventPublisher.publishEvent(
+                new BorrowOverdueEvent(loan.getId(), loan.getBookId(), loan.getUserId(), loan.getDueDate()));
+    }
+
+    // The scan goes on while batches come back full, returns in the meantime do not end it early
+    private record Batch(int read, int flagged) {
+    }
+}
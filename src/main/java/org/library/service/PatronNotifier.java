@@ -0,0 +1,187 @@
+package org.library.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.library.dto.borrow.OverdueNotification;
+import org.library.dto.reservation.HoldNotification;
+import org.library.entities.User;
+import org.library.event.BookHeldEvent;
+import org.library.event.BorrowOverdueEvent;
+import org.library.exception.ResourceNotFoundException;
+import org.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Tells a patron over SSE that a reserved book is now held for them, or that one of their loans went past
+// its due date. Sends run on a small bounded pool, never on the request or job that caused them; a
+// notification that finds the pool full is dropped, since holds also show up as ready reservations and
+// overdue loans in the patron's borrow list. A send that exceeds the send timeout is interrupted and its
+// emitter completed, so a stalled client cannot hold a dispatch thread; the patron's page reconnects.
+@Component
+public class PatronNotifier {
+    private static final Logger log = LoggerFactory.getLogger(PatronNotifier.class);
+    private static final String HOLD_EVENT = "hold";
+    private static final String OVERDUE_EVENT = "overdue";
+
+    @Value("${library.notifications.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+    @Value("${library.notifications.threads:2}")
+    private int notifyThreads;
+    @Value("${library.notifications.queue:1000}")
+    private int notifyQueue;
+    @Value("${library.notifications.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private final UserRepository userRepository;
+    // A user may have the stream open in several tabs or devices
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor dispatcher;
+    private ScheduledExecutorService sendTimeouts;
+
+    public PatronNotifier(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.dispatcher = new ThreadPoolExecutor(
+                notifyThreads,
+                notifyThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(notifyQueue),
+                new CustomizableThreadFactory("patron-notifier-")
+        );
+        this.sendTimeouts = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("patron-notifier-timeout-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendTimeouts.shutdownNow();
+        dispatcher.shutdownNow();
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(SseEmitter::complete));
+    }
+
+    public SseEmitter subscribe() {
+        Long userId = getCurrentUser().getId();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(error -> remove(userId, emitter));
+        emitters.compute(userId, (id, userEmitters) -> {
+            Set<SseEmitter> current = userEmitters != null ? userEmitters : ConcurrentHashMap.newKeySet();
+            current.add(emitter);
+            return current;
+        });
+        return emitter;
+    }
+
+    // After commit, so a hold that was rolled back is never announced
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookHeld(BookHeldEvent event) {
+        HoldNotification hold = new HoldNotification(event.getReservationId(), event.getBookId(), event.getExpiresAt());
+        push(event.getUserId(), () -> SseEmitter.event()
+                .id("hold-" + event.getReservationId())
+                .name(HOLD_EVENT)
+                .data(hold));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBorrowOverdue(BorrowOverdueEvent event) {
+        OverdueNotification overdue =
+                new OverdueNotification(event.getBorrowRecordId(), event.getBookId(), event.getDueDate());
+        push(event.getUserId(), () -> SseEmitter.event()
+                .id("overdue-" + event.getBorrowRecordId())
+                .name(OVERDUE_EVENT)
+                .data(overdue));
+    }
+
+    // Each emitter gets its own builder, a built event cannot be sent twice
+    private void push(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                dispatcher.execute(() -> send(userId, emitter, event));
+            } catch (RejectedExecutionException e) {
+                log.debug("Notification for user {} dropped, dispatch queue full", userId);
+            }
+        }
+    }
+
+    // A send that does not finish within the timeout is interrupted and its emitter dropped
+    private void send(Long userId, SseEmitter emitter, Supplier<SseEmitter.SseEventBuilder> event) {
+        SendDeadline deadline = new SendDeadline(Thread.currentThread());
+        ScheduledFuture<?> timeout = sendTimeouts.schedule(deadline::abort, sendTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            emitter.send(event.get());
+        } catch (IOException | IllegalStateException e) {
+            remove(userId, emitter);
+            log.debug("Notification subscriber dropped", e);
+        } finally {
+            timeout.cancel(false);
+            deadline.finish();
+        }
+        if (deadline.timedOut) {
+            remove(userId, emitter);
+            emitter.complete();
+            log.debug("Notification to user {} timed out after {} ms", userId, sendTimeoutMs);
+        }
+    }
+
+    private User getCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    private static class SendDeadline {
+        private Thread sender;
+        private volatile boolean timedOut;
+
+        private SendDeadline(Thread sender) {
+            this.sender = sender;
+        }
+
+        private synchronized void abort() {
+            if (sender != null) {
+                timedOut = true;
+                sender.interrupt();
+            }
+        }
+
+        private synchronized void finish() {
+            sender = null;
+            // Clears an interrupt that arrived after the send had already returned
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.library.service;
+
+import org.library.repository.ReservationRef;
+import org.library.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Per-book FIFO of waiting reservations, mirroring the WAITING rows of the reservations table so a return
+// can find the next holder without a query. New waiters are added inside the reserving transaction and
+// removals are applied after commit; the conditional updates in ReservationRepository stay the source of
+// truth when an entry is stale.
+@Component
+public class ReservationQueue {
+    private static final Logger log = LoggerFactory.getLogger(ReservationQueue.class);
+
+    private final ReservationRepository reservationRepository;
+    private final Map<Long, ConcurrentLinkedQueue<Waiter>> queues = new ConcurrentHashMap<>();
+
+    public ReservationQueue(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        queues.clear();
+        List<ReservationRef> waiting = reservationRepository.findWaiting();
+        for (ReservationRef reservation : waiting) {
+            add(reservation.getBookId(), new Waiter(reservation.getId(), reservation.getUserId()));
+        }
+        log.info("Reservation queues loaded with {} waiting reservations for {} books", waiting.size(), queues.size());
+    }
+
+    // Oldest first
+    public List<Waiter> waiting(Long bookId) {
+        ConcurrentLinkedQueue<Waiter> queue = queues.get(bookId);
+        return queue == null ? List.of() : List.copyOf(queue);
+    }
+
+    public int size(Long bookId) {
+        ConcurrentLinkedQueue<Waiter> queue = queues.get(bookId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    // 1 for the next in line, 0 when the reservation is not waiting
+    public int position(Long bookId, Long reservationId) {
+        int position = 1;
+        for (Waiter waiter : waiting(bookId)) {
+            if (waiter.reservationId() == reservationId) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    // Visible to hand-offs right away and taken back if the transaction rolls back. A hand-off that sees
+    // the entry before the commit waits on the book row lock the reserving transaction holds.
+    public void addUntilRollback(Long bookId, Waiter waiter) {
+        add(bookId, waiter);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        remove(bookId, waiter);
+                    }
+                }
+            });
+        }
+    }
+
+    public void removeAfterCommit(Long bookId, Waiter waiter) {
+        afterCommit(() -> remove(bookId, waiter));
+    }
+
+    private void add(Long bookId, Waiter waiter) {
+        queues.compute(bookId, (id, queue) -> {
+            ConcurrentLinkedQueue<Waiter> target = queue == null ? new ConcurrentLinkedQueue<>() : queue;
+            target.add(waiter);
+            return target;
+        });
+    }
+
+    private void remove(Long bookId, Waiter waiter) {
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            queue.remove(waiter);
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record Waiter(long reservationId, long userId) {
+    }
+}
@@ -0,0 +1,237 @@
+package org.library.service;
+
+import org.library.dto.reservation.ReservationRequest;
+import org.library.dto.reservation.ReservationResponse;
+import org.library.entities.Book;
+import org.library.entities.CatalogEntityType;
+import org.library.entities.Reservation;
+import org.library.entities.ReservationStatus;
+import org.library.entities.User;
+import org.library.event.BookAvailableEvent;
+import org.library.event.BookHeldEvent;
+import org.library.exception.BadRequestException;
+import org.library.exception.ConflictException;
+import org.library.exception.ResourceNotFoundException;
+import org.library.repository.BookRepository;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.ReservationRef;
+import org.library.repository.ReservationRepository;
+import org.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// Reservations for borrowed books. A returned book with a queue stays flagged as borrowed and is held
+// for the next patron in line, who collects it with a normal borrow before the hold expires.
+@Service
+public class ReservationService {
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final Set<ReservationStatus> ACTIVE = Set.of(ReservationStatus.WAITING, ReservationStatus.READY);
+
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final UserRepository userRepository;
+    private final ReservationQueue reservationQueue;
+    private final CatalogVersions catalogVersions;
+    private final CatalogETags catalogETags;
+    private final BookCache bookCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${library.reservation.hold-hours:48}")
+    private long holdHours;
+    @Value("${library.reservation.max-per-user:10}")
+    private int maxReservationsPerUser;
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              BookRepository bookRepository,
+                              BorrowRecordRepository borrowRecordRepository,
+                              UserRepository userRepository,
+                              ReservationQueue reservationQueue,
+                              CatalogVersions catalogVersions,
+                              CatalogETags catalogETags,
+                              BookCache bookCache,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.userRepository = userRepository;
+        this.reservationQueue = reservationQueue;
+        this.catalogVersions = catalogVersions;
+        this.catalogETags = catalogETags;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public ReservationResponse reserveBook(ReservationRequest reservationRequest) {
+        User user = getCurrentUser();
+        // Locked until commit, so a return cannot free the book between this check and the queue entry
+        Book book = bookRepository.findByIdForUpdate(reservationRequest.getBookId())
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+
+        if (!book.isBorrowed()) {
+            throw new ConflictException("Book is available, borrow it instead");
+        }
+        if (borrowRecordRepository.existsByUserIdAndBookIdAndIsReturnedFalse(user.getId(), book.getId())) {
+            throw new ConflictException("You are already borrowing this book");
+        }
+        if (reservationRepository.existsByUserIdAndBookIdAndStatusIn(user.getId(), book.getId(), ACTIVE)) {
+            throw new ConflictException("You already have a reservation for this book");
+        }
+        if (reservationRepository.countByUserIdAndStatusIn(user.getId(), ACTIVE) >= maxReservationsPerUser) {
+            throw new BadRequestException("Maximum reservation limit of " + maxReservationsPerUser + " books reached");
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setBook(book);
+        reservation.setUser(user);
+        reservation.setStatus(ReservationStatus.WAITING);
+        reservation.setCreatedAt(LocalDateTime.now());
+        Reservation saved = reservationRepository.save(reservation);
+
+        int position = reservationQueue.size(book.getId()) + 1;
+        reservationQueue.addUntilRollback(book.getId(), new ReservationQueue.Waiter(saved.getId(), user.getId()));
+        return toReservationResponse(saved, position);
+    }
+
+    @Transactional
+    public ReservationResponse cancelReservation(Long reservationId) {
+        Reservation reservation = reservationRepository.findWithBookAndUserById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found"));
+
+        User user = getCurrentUser();
+        if (!reservation.getUser().getId().equals(user.getId())) {
+            throw new BadRequestException("You can only cancel your own reservations");
+        }
+
+        ReservationStatus status = reservation.getStatus();
+        if (!ACTIVE.contains(status)
+                || reservationRepository.updateStatus(reservationId, status, ReservationStatus.CANCELLED) == 0) {
+            throw new ConflictException("Reservation is no longer active");
+        }
+        reservation.setStatus(ReservationStatus.CANCELLED);
+
+        Long bookId = reservation.getBook().getId();
+        if (status == ReservationStatus.WAITING) {
+            reservationQueue.removeAfterCommit(bookId, new ReservationQueue.Waiter(reservationId, user.getId()));
+        } else {
+            // The held copy goes to the next in line
+            releaseOrHandOff(bookId);
+        }
+        return toReservationResponse(reservation, null);
+    }
+
+    public List<ReservationResponse> getMyReservations() {
+        User user = getCurrentUser();
+        return reservationRepository.findWithBookByUserIdAndStatusIn(user.getId(), ACTIVE).stream()
+                .map(reservation -> toReservationResponse(reservation,
+                        reservation.getStatus() == ReservationStatus.WAITING
+                                ? reservationQueue.position(reservation.getBook().getId(), reservation.getId())
+                                : null))
+                .toList();
+    }
+
+    // A patron who borrows a book they were queued for leaves the queue, otherwise their own return
+    // would hold the book for them again
+    @Transactional
+    public void cancelWaiting(Long userId, Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            for (ReservationQueue.Waiter waiter : reservationQueue.waiting(bookId)) {
+                if (waiter.userId() == userId && reservationRepository.updateStatus(
+                        waiter.reservationId(), ReservationStatus.WAITING, ReservationStatus.CANCELLED) == 1) {
+                    reservationQueue.removeAfterCommit(bookId, waiter);
+                }
+            }
+        }
+    }
+
+    // Called by a borrow that lost the race for the book flag: succeeds when the book is held for this user
+    @Transactional
+    public boolean collectHold(Long userId, Long bookId) {
+        return reservationRepository.markCollected(userId, bookId, LocalDateTime.now()) == 1;
+    }
+
+    // Books of a cart that are currently held for this user, they are collected rather than claimed
+    public Set<Long> heldFor(Long userId, Collection<Long> bookIds) {
+        return Set.copyOf(reservationRepository.findHeldBookIds(userId, bookIds, LocalDateTime.now()));
+    }
+
+    // Runs inside the returning transaction. Holds the book for the oldest waiting reservation,
+    // or makes it available when nobody is waiting.
+    @Transactional
+    public void releaseOrHandOff(Long bookId) {
+        catalogVersions.begin();
+        if (!handOff(bookId) && bookRepository.markReturned(bookId) == 1) {
+            catalogETags.changed(CatalogEntityType.BOOK, bookId);
+            eventPublisher.publishEvent(new BookAvailableEvent(bookId));
+        }
+        bookCache.invalidate(bookId);
+    }
+
+    // True when the book was set aside for a waiting patron and must stay flagged as borrowed.
+    // Takes the book row lock first, so a reservation in flight is either committed and queued or
+    // sees the book returned.
+    @Transactional
+    public boolean handOff(Long bookId) {
+        bookRepository.findByIdForUpdate(bookId);
+        for (ReservationQueue.Waiter waiter : reservationQueue.waiting(bookId)) {
+            reservationQueue.removeAfterCommit(bookId, waiter);
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusHours(holdHours);
+            // Entries cancelled in the meantime fail the conditional update and are skipped
+            if (reservationRepository.markReady(waiter.reservationId(), now, expiresAt) == 1) {
+                eventPublisher.publishEvent(
+                        new BookHeldEvent(bookId, waiter.userId(), waiter.reservationId(), expiresAt));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${library.reservation.expiry-check-ms:60000}")
+    public void expireHolds() {
+        for (ReservationRef hold : reservationRepository.findExpiredHolds(LocalDateTime.now())) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (reservationRepository.updateStatus(hold.getId(), ReservationStatus.READY, ReservationStatus.EXPIRED) == 1) {
+                    releaseOrHandOff(hold.getBookId());
+                    log.info("Hold {} on book {} expired", hold.getId(), hold.getBookId());
+                }
+            });
+        }
+    }
+
+    private User getCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    private ReservationResponse toReservationResponse(Reservation reservation, Integer position) {
+        return new ReservationResponse(
+                reservation.getId(),
+                reservation.getBook().getId(),
+                reservation.getBook().getTitle(),
+                reservation.getStatus(),
+                position,
+                reservation.getCreatedAt(),
+                reservation.getExpiresAt()
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package org.library.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Space-Saving heavy hitters sketch with a fixed number of counters.
+// Any key whose true count exceeds totalCount / capacity is guaranteed to be tracked, and a tracked
+// key's true count lies between count - error and count. Not thread safe, callers synchronize.
+public class SpaceSavingSketch<L> {
+
+    private final int capacity;
+    private final Map<Long, Counter<L>> counters = new HashMap<>();
+    private final TreeSet<Counter<L>> byCount = new TreeSet<>(
+            Comparator.comparingLong((Counter<L> counter) -> counter.count).thenComparing(counter -> counter.key));
+    private long totalCount;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void offer(Long key, L label, long weight) {
+        totalCount += weight;
+        Counter<L> counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            counter.label = label;
+            byCount.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, label, weight, 0);
+        } else {
+            // Replace the smallest counter; the new key inherits its count as possible overestimation
+            Counter<L> smallest = byCount.pollFirst();
+            counters.remove(smallest.key);
+            counter = new Counter<>(key, label, smallest.count + weight, smallest.count);
+        }
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    public List<Entry<L>> top(int limit) {
+        List<Entry<L>> result = new ArrayList<>(limit);
+        for (Counter<L> counter : byCount.descendingSet()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(new Entry<>(counter.key, counter.label, counter.count, counter.error));
+        }
+        return result;
+    }
+
+    public void clear() {
+        counters.clear();
+        byCount.clear();
+        totalCount = 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    // Worst case overestimation of any reported count
+    public long getErrorBound() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    public record Entry<L>(Long key, L label, long count, long error) {
+    }
+
+    private static class Counter<L> {
+        private final Long key;
+        private L label;
+        private long count;
+        private final long error;
+
+        private Counter(Long key, L label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
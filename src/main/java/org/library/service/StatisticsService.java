@@ -1,150 +1,312 @@
 package org.library.service;
 
-import org.library.dto.statistics.*;
-import org.library.entities.Book;
-import org.library.entities.BorrowRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.library.dto.statistics.ApproximationBounds;
+import org.library.dto.statistics.AuthorStatistics;
+import org.library.dto.statistics.BookStatistics;
+import org.library.dto.statistics.CategoryStatistics;
+import org.library.dto.statistics.StatisticsResponse;
+import org.library.dto.statistics.TrendingResponse;
+import org.library.exception.BadRequestException;
 import org.library.repository.BookRepository;
 import org.library.repository.BorrowRecordRepository;
+import org.library.repository.IdCount;
 import org.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Comparator;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class StatisticsService {
+    private static final Logger log = LoggerFactory.getLogger(StatisticsService.class);
+    private static final int TOP_LIMIT = 10;
+    private static final int MAX_TRENDING_LIMIT = 50;
     private final BookRepository bookRepository;
     private final BorrowRecordRepository borrowRecordRepository;
     private final UserRepository userRepository;
+    private final StatisticsTracker statisticsTracker;
+    private final TrendingTracker trendingTracker;
+    private final HeavyHittersTracker heavyHittersTracker;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService refreshExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("statistics-refresh-"));
+
+    // "events" serves the incrementally maintained counters, "database" recomputes from aggregate queries,
+    // "approximate" takes the top lists from fixed-memory heavy hitter sketches
+    @Value("${library.statistics.source:events}")
+    private String source;
+    @Value("${library.statistics.refresh-interval-ms:30000}")
+    private long refreshIntervalMs;
+    @Value("${library.statistics.query-concurrency:4}")
+    private int queryConcurrency;
+    @Value("${library.statistics.query-timeout-ms:5000}")
+    private long queryTimeoutMs;
+
+    // Independent aggregate queries run side by side, each in its own read-only transaction
+    private ThreadPoolExecutor queryExecutor;
+    private TransactionTemplate readOnlyTransaction;
+
+    // Last computed snapshot, and the refresh currently running if any
+    private volatile StatisticsResponse snapshot;
+    private CompletableFuture<StatisticsResponse> refreshInFlight;
 
     public StatisticsService(BookRepository bookRepository,
                              BorrowRecordRepository borrowRecordRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             StatisticsTracker statisticsTracker,
+                             TrendingTracker trendingTracker,
+                             HeavyHittersTracker heavyHittersTracker,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
         this.bookRepository = bookRepository;
         this.borrowRecordRepository = borrowRecordRepository;
         this.userRepository = userRepository;
+        this.statisticsTracker = statisticsTracker;
+        this.trendingTracker = trendingTracker;
+        this.heavyHittersTracker = heavyHittersTracker;
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
     }
 
+    @PostConstruct
+    public void init() {
+        // Excess queries run on the refreshing thread instead of being rejected
+        this.queryExecutor = new ThreadPoolExecutor(
+                queryConcurrency,
+                queryConcurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(32),
+                new CustomizableThreadFactory("statistics-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+
+        // The transaction timeout is applied to the JDBC statements, so a query that is given up on
+        // is also cancelled in the database instead of holding a worker
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queryTimeoutMs + 999)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+        queryExecutor.shutdown();
+    }
+
+    // Serves the last snapshot straight away and revalidates it in the background once it is stale
     public StatisticsResponse getStatistics() {
-        long totalBooks = bookRepository.count();
-        long totalUsers = userRepository.count();
-        long totalBorrowedBooks = bookRepository.findByIsBorrowedTrue().size();
-        long totalAvailableBooks = bookRepository.findByIsBorrowedFalse().size();
-        long totalBorrowRecords = borrowRecordRepository.count();
-        long totalActiveBorrows = borrowRecordRepository.findByIsReturnedFalse().size();
-
-        // Get all borrow records for statistics
-        List<BorrowRecord> allBorrowRecords = borrowRecordRepository.findAll();
-
-        // Popular Categories Statistics
-        Map<Long, Long> categoryBorrowCount = allBorrowRecords.stream()
-                .collect(Collectors.groupingBy(
-                        record -> record.getBook().getCategory().getId(),
-                        Collectors.counting()
-                ));
-
-        Map<Long, Long> categoryBookCount = bookRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        book -> book.getCategory().getId(),
-                        Collectors.counting()
-                ));
-
-        List<CategoryStatistics> popularCategories = categoryBorrowCount.entrySet().stream()
-                .map(entry -> {
-                    Book sampleBook = allBorrowRecords.stream()
-                            .filter(record -> record.getBook().getCategory().getId().equals(entry.getKey()))
-                            .findFirst()
-                            .map(BorrowRecord::getBook)
-                            .orElse(null);
-
-                    String categoryName = sampleBook != null ? sampleBook.getCategory().getName() : "Unknown";
-
-                    return new CategoryStatistics(
-                            entry.getKey(),
-                            categoryName,
-                            categoryBookCount.getOrDefault(entry.getKey(), 0L),
-                            entry.getValue()
-                    );
-                })
-                .sorted(Comparator.comparing(CategoryStatistics::getBorrowCount).reversed())
-                .limit(10)
-                .collect(Collectors.toList());
-
-        // Popular Authors Statistics
-        Map<Long, Long> authorBorrowCount = allBorrowRecords.stream()
-                .collect(Collectors.groupingBy(
-                        record -> record.getBook().getAuthor().getId(),
-                        Collectors.counting()
-                ));
-
-        Map<Long, Long> authorBookCount = bookRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        book -> book.getAuthor().getId(),
-                        Collectors.counting()
-                ));
-
-        List<AuthorStatistics> popularAuthors = authorBorrowCount.entrySet().stream()
-                .map(entry -> {
-                    Book sampleBook = allBorrowRecords.stream()
-                            .filter(record -> record.getBook().getAuthor().getId().equals(entry.getKey()))
-                            .findFirst()
-                            .map(BorrowRecord::getBook)
-                            .orElse(null);
-
-                    String authorName = sampleBook != null ? sampleBook.getAuthor().getName() : "Unknown";
-
-                    return new AuthorStatistics(
-                            entry.getKey(),
-                            authorName,
-                            authorBookCount.getOrDefault(entry.getKey(), 0L),
-                            entry.getValue()
-                    );
-                })
-                .sorted(Comparator.comparing(AuthorStatistics::getBorrowCount).reversed())
-                .limit(10)
-                .collect(Collectors.toList());
-
-        // Most Borrowed Books Statistics
-        Map<Long, Long> bookBorrowCount = allBorrowRecords.stream()
-                .collect(Collectors.groupingBy(
-                        record -> record.getBook().getId(),
-                        Collectors.counting()
-                ));
-
-        List<BookStatistics> mostBorrowedBooks = bookBorrowCount.entrySet().stream()
-                .map(entry -> {
-                    Book book = bookRepository.findById(entry.getKey())
-                            .orElse(null);
-
-                    if (book == null) {
-                        return null;
-                    }
-
-                    return new BookStatistics(
-                            book.getId(),
-                            book.getTitle(),
-                            book.getAuthor().getName(),
-                            entry.getValue()
-                    );
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(BookStatistics::getBorrowCount).reversed())
-                .limit(10)
-                .collect(Collectors.toList());
-
-        return new StatisticsResponse(
-                totalBooks,
-                totalUsers,
-                totalBorrowedBooks,
-                totalAvailableBooks,
-                totalBorrowRecords,
-                totalActiveBorrows,
-                popularCategories,
-                popularAuthors,
-                mostBorrowedBooks
+        StatisticsResponse current = snapshot;
+        if (current == null) {
+            return refresh().join();
+        }
+        if (current.getGeneratedAt().isBefore(LocalDateTime.now().minus(Duration.ofMillis(refreshIntervalMs)))) {
+            refresh();
+        }
+        return current;
+    }
+
+    public StatisticsResponse refreshStatistics() {
+        return refresh().join();
+    }
+
+    public TrendingResponse getTrending(String granularity, int span, int limit) {
+        if (!TrendingTracker.HOURLY.equals(granularity) && !TrendingTracker.DAILY.equals(granularity)) {
+            throw new BadRequestException("Granularity must be 'hour' or 'day'");
+        }
+        return trendingTracker.trending(granularity, span, Math.max(1, Math.min(limit, MAX_TRENDING_LIMIT)));
+    }
+
+    @Scheduled(fixedDelayString = "${library.statistics.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    // Callers arriving while a refresh is running share its result instead of starting another one
+    private synchronized CompletableFuture<StatisticsResponse> refresh() {
+        if (refreshInFlight != null) {
+            return refreshInFlight;
+        }
+        CompletableFuture<StatisticsResponse> refresh = CompletableFuture.supplyAsync(this::compute, refreshExecutor);
+        refreshInFlight = refresh;
+        refresh.whenComplete((result, error) -> {
+            synchronized (this) {
+                refreshInFlight = null;
+            }
+            if (error != null) {
+                log.warn("Statistics refresh failed", error);
+            } else {
+                snapshot = result;
+            }
+        });
+        return refresh;
+    }
+
+    private StatisticsResponse compute() {
+        if ("database".equals(source)) {
+            return computeFromDatabase();
+        }
+        if ("approximate".equals(source)) {
+            return computeApproximate();
+        }
+        return statisticsTracker.snapshot(userRepository.count());
+    }
+
+    private StatisticsResponse computeFromDatabase() {
+        PageRequest top = PageRequest.of(0, TOP_LIMIT);
+        Totals totals = fetchTotals();
+        CompletableFuture<List<CategoryStatistics>> popularCategories = subQuery("popularCategories",
+                () -> borrowRecordRepository.findPopularCategories(top),
+                previousOr(StatisticsResponse::getPopularCategories, List.of()));
+        CompletableFuture<List<AuthorStatistics>> popularAuthors = subQuery("popularAuthors",
+                () -> borrowRecordRepository.findPopularAuthors(top),
+                previousOr(StatisticsResponse::getPopularAuthors, List.of()));
+        CompletableFuture<List<BookStatistics>> mostBorrowedBooks = subQuery("mostBorrowedBooks",
+                () -> borrowRecordRepository.findMostBorrowedBooks(top),
+                previousOr(StatisticsResponse::getMostBorrowedBooks, List.of()));
+
+        return totals.toResponse(
+                popularCategories.join(),
+                popularAuthors.join(),
+                mostBorrowedBooks.join(),
+                null
         );
     }
+
+    private StatisticsResponse computeApproximate() {
+        Totals totals = fetchTotals();
+        List<SpaceSavingSketch.Entry<String>> categories = heavyHittersTracker.topCategories(TOP_LIMIT);
+        List<SpaceSavingSketch.Entry<String>> authors = heavyHittersTracker.topAuthors(TOP_LIMIT);
+
+        // Book counts are exact, looked up only for the ids that made it into the top lists
+        CompletableFuture<Map<Long, Long>> categoryBookCounts = categories.isEmpty()
+                ? CompletableFuture.completedFuture(Map.of())
+                : subQuery("categoryBookCounts",
+                        () -> toMap(bookRepository.countBooksByCategoryIds(keys(categories))), Map.of());
+        CompletableFuture<Map<Long, Long>> authorBookCounts = authors.isEmpty()
+                ? CompletableFuture.completedFuture(Map.of())
+                : subQuery("authorBookCounts",
+                        () -> toMap(bookRepository.countBooksByAuthorIds(keys(authors))), Map.of());
+
+        Map<Long, Long> categoryCounts = categoryBookCounts.join();
+        Map<Long, Long> authorCounts = authorBookCounts.join();
+        List<CategoryStatistics> popularCategories = categories.stream()
+                .map(entry -> new CategoryStatistics(entry.key(), entry.label(),
+                        categoryCounts.getOrDefault(entry.key(), 0L), entry.count()))
+                .toList();
+        List<AuthorStatistics> popularAuthors = authors.stream()
+                .map(entry -> new AuthorStatistics(entry.key(), entry.label(),
+                        authorCounts.getOrDefault(entry.key(), 0L), entry.count()))
+                .toList();
+        List<BookStatistics> mostBorrowedBooks = heavyHittersTracker.topBooks(TOP_LIMIT).stream()
+                .map(entry -> new BookStatistics(entry.key(), entry.label().title(), entry.label().authorName(), entry.count()))
+                .toList();
+
+        ApproximationBounds bounds = new ApproximationBounds(
+                heavyHittersTracker.getCapacity(),
+                heavyHittersTracker.categoryErrorBound(),
+                heavyHittersTracker.authorErrorBound(),
+                heavyHittersTracker.bookErrorBound()
+        );
+
+        return totals.toResponse(popularCategories, popularAuthors, mostBorrowedBooks, bounds);
+    }
+
+    private Totals fetchTotals() {
+        return new Totals(
+                subQuery("totalBooks", bookRepository::count,
+                        previousOr(StatisticsResponse::getTotalBooks, 0L)),
+                subQuery("totalUsers", userRepository::count,
+                        previousOr(StatisticsResponse::getTotalUsers, 0L)),
+                subQuery("totalBorrowedBooks", bookRepository::countByIsBorrowedTrue,
+                        previousOr(StatisticsResponse::getTotalBorrowedBooks, 0L)),
+                subQuery("totalAvailableBooks", bookRepository::countByIsBorrowedFalse,
+                        previousOr(StatisticsResponse::getTotalAvailableBooks, 0L)),
+                subQuery("totalBorrowRecords", borrowRecordRepository::count,
+                        previousOr(StatisticsResponse::getTotalBorrowRecords, 0L)),
+                subQuery("totalActiveBorrows", borrowRecordRepository::countByIsReturnedFalse,
+                        previousOr(StatisticsResponse::getTotalActiveBorrows, 0L))
+        );
+    }
+
+    // Runs one aggregate on the query pool. A query that fails or overruns the timeout is logged and
+    // replaced by the fallback, so one slow aggregate cannot hold back the rest of the snapshot.
+    private <T> CompletableFuture<T> subQuery(String name, Supplier<T> query, T fallback) {
+        Timer timer = Timer.builder("library.statistics.query")
+                .description("Time spent running one statistics sub-query")
+                .tag("query", name)
+                .register(meterRegistry);
+
+        return CompletableFuture
+                .supplyAsync(() -> timer.record(() -> readOnlyTransaction.execute(status -> query.get())), queryExecutor)
+                .orTimeout(queryTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    meterRegistry.counter("library.statistics.query.failures", "query", name).increment();
+                    log.warn("Statistics query {} failed or timed out, serving the previous value", name, error);
+                    return fallback;
+                });
+    }
+
+    private <T> T previousOr(Function<StatisticsResponse, T> getter, T defaultValue) {
+        StatisticsResponse previous = snapshot;
+        return previous == null ? defaultValue : getter.apply(previous);
+    }
+
+    private static List<Long> keys(List<SpaceSavingSketch.Entry<String>> entries) {
+        return entries.stream().map(entry -> entry.key()).toList();
+    }
+
+    private static Map<Long, Long> toMap(List<IdCount> counts) {
+        return counts.stream().collect(Collectors.toMap(IdCount::getId, IdCount::getTotal));
+    }
+
+    private record Totals(CompletableFuture<Long> totalBooks,
+                          CompletableFuture<Long> totalUsers,
+                          CompletableFuture<Long> totalBorrowedBooks,
+                          CompletableFuture<Long> totalAvailableBooks,
+                          CompletableFuture<Long> totalBorrowRecords,
+                          CompletableFuture<Long> totalActiveBorrows) {
+
+        private StatisticsResponse toResponse(List<CategoryStatistics> popularCategories,
+                                              List<AuthorStatistics> popularAuthors,
+                                              List<BookStatistics> mostBorrowedBooks,
+                                              ApproximationBounds approximation) {
+            return new StatisticsResponse(
+                    totalBooks.join(),
+                    totalUsers.join(),
+                    totalBorrowedBooks.join(),
+                    totalAvailableBooks.join(),
+                    totalBorrowRecords.join(),
+                    totalActiveBorrows.join(),
+                    popularCategories,
+                    popularAuthors,
+                    mostBorrowedBooks,
+                    LocalDateTime.now(),
+                    approximation
+            );
+        }
+    }
 }
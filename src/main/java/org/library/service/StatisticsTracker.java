@@ -0,0 +1,278 @@
+package org.library.service;
+
+import org.library.dto.statistics.AuthorStatistics;
+import org.library.dto.statistics.BookStatistics;
+import org.library.dto.statistics.CategoryStatistics;
+import org.library.dto.statistics.StatisticsResponse;
+import org.library.event.BookAvailableEvent;
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookCreatedEvent;
+import org.library.event.BookDeletedEvent;
+import org.library.event.BookReturnedEvent;
+import org.library.event.BookSnapshot;
+import org.library.event.BookUpdatedEvent;
+import org.library.repository.BookRepository;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.IdCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Library statistics kept up to date from book and borrow events, rebuilt from the database at startup.
+// Listeners run after commit, so rolled back borrows are never counted.
+@Component
+public class StatisticsTracker {
+    private static final Logger log = LoggerFactory.getLogger(StatisticsTracker.class);
+    private static final int TOP_LIMIT = 10;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+
+    private long totalBooks;
+    private long totalBorrowedBooks;
+    private long totalBorrowRecords;
+    private long totalActiveBorrows;
+    private final Map<Long, BookTally> books = new HashMap<>();
+    private final Map<Long, GroupTally> categories = new HashMap<>();
+    private final Map<Long, GroupTally> authors = new HashMap<>();
+
+    // Top lists are recomputed lazily, only after something changed
+    private List<CategoryStatistics> popularCategories;
+    private List<AuthorStatistics> popularAuthors;
+    private List<BookStatistics> mostBorrowedBooks;
+
+    public StatisticsTracker(BookRepository bookRepository, BorrowRecordRepository borrowRecordRepository) {
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        totalBooks = 0;
+        totalBorrowedBooks = 0;
+        books.clear();
+        categories.clear();
+        authors.clear();
+
+        long afterId = 0L;
+        List<BookSnapshot> batch;
+        do {
+            batch = bookRepository.findSnapshotPage(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (BookSnapshot book : batch) {
+                addBook(book);
+                afterId = book.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        for (IdCount count : borrowRecordRepository.countBorrowsPerBook()) {
+            BookTally book = books.get(count.getId());
+            if (book != null) {
+                addBorrows(book, count.getTotal());
+            }
+        }
+        totalBorrowRecords = borrowRecordRepository.count();
+        totalActiveBorrows = borrowRecordRepository.countByIsReturnedFalse();
+
+        invalidateTopLists();
+        log.info("Statistics rebuilt from {} books and {} borrow records", totalBooks, totalBorrowRecords);
+    }
+
+    public synchronized StatisticsResponse snapshot(long totalUsers) {
+        if (mostBorrowedBooks == null) {
+            computeTopLists();
+        }
+        return new StatisticsResponse(
+                totalBooks,
+                totalUsers,
+                totalBorrowedBooks,
+                totalBooks - totalBorrowedBooks,
+                totalBorrowRecords,
+                totalActiveBorrows,
+                popularCategories,
+                popularAuthors,
+                mostBorrowedBooks,
+                LocalDateTime.now(),
+                null
+        );
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookCreated(BookCreatedEvent event) {
+        addBook(event.getBook());
+        invalidateTopLists();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookUpdated(BookUpdatedEvent event) {
+        BookSnapshot current = event.getCurrent();
+        BookTally book = books.get(current.getId());
+        if (book == null) {
+            addBook(current);
+            invalidateTopLists();
+            return;
+        }
+
+        // Borrows follow the book, as if they had been grouped by its current author and category
+        if (!Objects.equals(book.authorId, current.getAuthorId())) {
+            moveBook(authors, book.authorId, current.getAuthorId(), current.getAuthorName(), book.borrowCount);
+        }
+        if (!Objects.equals(book.categoryId, current.getCategoryId())) {
+            moveBook(categories, book.categoryId, current.getCategoryId(), current.getCategoryName(), book.borrowCount);
+        }
+        book.title = current.getTitle();
+        book.authorId = current.getAuthorId();
+        book.authorName = current.getAuthorName();
+        book.categoryId = current.getCategoryId();
+        invalidateTopLists();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        BookTally book = books.remove(event.getBook().getId());
+        if (book == null) {
+            return;
+        }
+        totalBooks--;
+        if (event.getBook().isBorrowed()) {
+            totalBorrowedBooks--;
+        }
+        removeBook(authors, book.authorId, book.borrowCount);
+        removeBook(categories, book.categoryId, book.borrowCount);
+        invalidateTopLists();
+    }
+
+    // The borrowed book count follows the book flag: a held copy stays flagged from the return that set it
+    // aside until it is collected, or until the hold ends and BookAvailableEvent clears it
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookBorrowed(BookBorrowedEvent event) {
+        totalBorrowRecords++;
+        totalActiveBorrows++;
+        if (!event.isFromHold()) {
+            totalBorrowedBooks++;
+        }
+
+        BookTally book = books.get(event.getBook().getId());
+        if (book != null) {
+            addBorrows(book, 1);
+        }
+        invalidateTopLists();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookReturned(BookReturnedEvent event) {
+        totalActiveBorrows--;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookAvailable(BookAvailableEvent event) {
+        totalBorrowedBooks--;
+    }
+
+    private void addBook(BookSnapshot snapshot) {
+        BookTally book = new BookTally(snapshot);
+        books.put(snapshot.getId(), book);
+        totalBooks++;
+        if (snapshot.isBorrowed()) {
+            totalBorrowedBooks++;
+        }
+        categories.computeIfAbsent(snapshot.getCategoryId(), id -> new GroupTally(id, snapshot.getCategoryName()))
+                .bookCount++;
+        authors.computeIfAbsent(snapshot.getAuthorId(), id -> new GroupTally(id, snapshot.getAuthorName()))
+                .bookCount++;
+    }
+
+    private void addBorrows(BookTally book, long count) {
+        book.borrowCount += count;
+        categories.get(book.categoryId).borrowCount += count;
+        authors.get(book.authorId).borrowCount += count;
+    }
+
+    private static void moveBook(Map<Long, GroupTally> groups, Long fromId, Long toId, String toName, long borrowCount) {
+        removeBook(groups, fromId, borrowCount);
+        GroupTally to = groups.computeIfAbsent(toId, id -> new GroupTally(id, toName));
+        to.bookCount++;
+        to.borrowCount += borrowCount;
+    }
+
+    private static void removeBook(Map<Long, GroupTally> groups, Long groupId, long borrowCount) {
+        GroupTally group = groups.get(groupId);
+        if (group == null) {
+            return;
+        }
+        group.bookCount--;
+        group.borrowCount -= borrowCount;
+        if (group.bookCount <= 0) {
+            groups.remove(groupId);
+        }
+    }
+
+    private void invalidateTopLists() {
+        popularCategories = null;
+        popularAuthors = null;
+        mostBorrowedBooks = null;
+    }
+
+    private void computeTopLists() {
+        popularCategories = categories.values().stream()
+                .filter(group -> group.borrowCount > 0)
+                .sorted(Comparator.comparingLong((GroupTally group) -> group.borrowCount).reversed())
+                .limit(TOP_LIMIT)
+                .map(group -> new CategoryStatistics(group.id, group.name, group.bookCount, group.borrowCount))
+                .toList();
+
+        popularAuthors = authors.values().stream()
+                .filter(group -> group.borrowCount > 0)
+                .sorted(Comparator.comparingLong((GroupTally group) -> group.borrowCount).reversed())
+                .limit(TOP_LIMIT)
+                .map(group -> new AuthorStatistics(group.id, group.name, group.bookCount, group.borrowCount))
+                .toList();
+
+        mostBorrowedBooks = books.values().stream()
+                .filter(book -> book.borrowCount > 0)
+                .sorted(Comparator.comparingLong((BookTally book) -> book.borrowCount).reversed())
+                .limit(TOP_LIMIT)
+                .map(book -> new BookStatistics(book.id, book.title, book.authorName, book.borrowCount))
+                .toList();
+    }
+
+    private static class BookTally {
+        private final Long id;
+        private String title;
+        private Long authorId;
+        private String authorName;
+        private Long categoryId;
+        private long borrowCount;
+
+        private BookTally(BookSnapshot snapshot) {
+            this.id = snapshot.getId();
+            this.title = snapshot.getTitle();
+            this.authorId = snapshot.getAuthorId();
+            this.authorName = snapshot.getAuthorName();
+            this.categoryId = snapshot.getCategoryId();
+        }
+    }
+
+    private static class GroupTally {
+        private final Long id;
+        private final String name;
+        private long bookCount;
+        private long borrowCount;
+
+        private GroupTally(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
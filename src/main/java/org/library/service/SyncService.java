@@ -0,0 +1,96 @@
+package org.library.service;
+
+import org.library.dto.sync.SyncAuthor;
+import org.library.dto.sync.SyncBook;
+import org.library.dto.sync.SyncCategory;
+import org.library.dto.sync.SyncResponse;
+import org.library.dto.sync.SyncTombstone;
+import org.library.exception.BadRequestException;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.library.repository.CatalogTombstoneRepository;
+import org.library.repository.CategoryRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Delta sync for catalog mirrors. Every change carries a distinct version, so a page is the pageSize lowest
+// versions after since across books, authors, categories and tombstones, each read through its
+// change_version index. The cost of a call follows the number of changes, not the size of the catalog.
+@Service
+public class SyncService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogTombstoneRepository tombstoneRepository;
+    private final CatalogVersions catalogVersions;
+
+    public SyncService(BookRepository bookRepository,
+                       AuthorRepository authorRepository,
+                       CategoryRepository categoryRepository,
+                       CatalogTombstoneRepository tombstoneRepository,
+                       CatalogVersions catalogVersions) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.catalogVersions = catalogVersions;
+    }
+
+    @Transactional(readOnly = true)
+    public SyncResponse changesSince(long since, int size) {
+        if (since < 0) {
+            throw new BadRequestException("since must not be negative");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Nothing at or below until can still change, so a mirror may safely continue from there
+        long until = catalogVersions.safeVersion();
+        if (since >= until) {
+            return new SyncResponse(List.of(), List.of(), List.of(), List.of(), since, false);
+        }
+
+        // Each source can fill the whole page on its own, one extra row tells whether more follows
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<SyncAuthor> authors = authorRepository.findChanges(since, until, limit);
+        List<SyncCategory> categories = categoryRepository.findChanges(since, until, limit);
+        List<SyncBook> books = bookRepository.findChanges(since, until, limit);
+        List<SyncTombstone> deleted = tombstoneRepository.findChanges(since, until, limit);
+
+        long[] versions = Stream.of(
+                        authors.stream().map(SyncAuthor::getVersion),
+                        categories.stream().map(SyncCategory::getVersion),
+                        books.stream().map(SyncBook::getVersion),
+                        deleted.stream().map(SyncTombstone::getVersion))
+                .flatMap(Function.identity())
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        if (versions.length <= pageSize) {
+            return new SyncResponse(authors, categories, books, deleted, until, false);
+        }
+
+        long last = versions[pageSize - 1];
+        return new SyncResponse(
+                upTo(authors, SyncAuthor::getVersion, last),
+                upTo(categories, SyncCategory::getVersion, last),
+                upTo(books, SyncBook::getVersion, last),
+                upTo(deleted, SyncTombstone::getVersion, last),
+                last,
+                true
+        );
+    }
+
+    private static <T> List<T> upTo(List<T> changes, Function<T, Long> versionOf, long last) {
+        return changes.stream()
+                .filter(change -> versionOf.apply(change) <= last)
+                .toList();
+    }
+}
@@ -0,0 +1,190 @@
+package org.library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.library.dto.statistics.TrendingEntry;
+import org.library.dto.statistics.TrendingResponse;
+import org.library.event.BookBorrowedEvent;
+import org.library.event.BookSnapshot;
+import org.library.event.BookUpdatedEvent;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.DailyBorrowCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Borrow counts per book, author and category in hourly and daily ring buffers.
+// A query only merges the buckets inside its window, so its cost does not grow with history.
+@Component
+public class TrendingTracker {
+    public static final String HOURLY = "hour";
+    public static final String DAILY = "day";
+
+    private final BorrowRecordRepository borrowRecordRepository;
+
+    @Value("${library.trending.hours:168}")
+    private int hourlyBuckets;
+    @Value("${library.trending.days:90}")
+    private int dailyBuckets;
+
+    private BucketRing hours;
+    private BucketRing days;
+    private final Map<Long, String> bookTitles = new HashMap<>();
+    private final Map<Long, String> authorNames = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+
+    public TrendingTracker(BorrowRecordRepository borrowRecordRepository) {
+        this.borrowRecordRepository = borrowRecordRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.hours = new BucketRing(hourlyBuckets);
+        this.days = new BucketRing(dailyBuckets);
+    }
+
+    // Borrow records only carry a date, so history is restored into the daily ring;
+    // the hourly ring fills up from live borrows
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        this.hours = new BucketRing(hourlyBuckets);
+        this.days = new BucketRing(dailyBuckets);
+
+        LocalDate since = LocalDate.now().minusDays(dailyBuckets - 1L);
+        for (DailyBorrowCount count : borrowRecordRepository.countDailyBorrowsSince(since)) {
+            bookTitles.put(count.getBookId(), count.getBookTitle());
+            authorNames.put(count.getAuthorId(), count.getAuthorName());
+            categoryNames.put(count.getCategoryId(), count.getCategoryName());
+            days.bucket(count.getBorrowDate().toEpochDay())
+                    .add(count.getBookId(), count.getAuthorId(), count.getCategoryId(), count.getBorrowCount());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookBorrowed(BookBorrowedEvent event) {
+        BookSnapshot book = event.getBook();
+        rememberNames(book);
+
+        LocalDateTime now = LocalDateTime.now();
+        hours.bucket(hourEpoch(now)).add(book.getId(), book.getAuthorId(), book.getCategoryId(), 1);
+        days.bucket(now.toLocalDate().toEpochDay()).add(book.getId(), book.getAuthorId(), book.getCategoryId(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookUpdated(BookUpdatedEvent event) {
+        rememberNames(event.getCurrent());
+    }
+
+    public synchronized TrendingResponse trending(String granularity, int span, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean hourly = HOURLY.equals(granularity);
+        BucketRing ring = hourly ? hours : days;
+        int window = Math.max(1, Math.min(span, ring.size()));
+        long currentEpoch = hourly ? hourEpoch(now) : now.toLocalDate().toEpochDay();
+
+        Bucket total = ring.merge(currentEpoch, window);
+        LocalDateTime from = hourly
+                ? now.truncatedTo(ChronoUnit.HOURS).minusHours(window - 1L)
+                : now.toLocalDate().minusDays(window - 1L).atStartOfDay();
+
+        return new TrendingResponse(
+                hourly ? HOURLY : DAILY,
+                window,
+                from,
+                now,
+                top(total.books, bookTitles, limit),
+                top(total.categories, categoryNames, limit),
+                top(total.authors, authorNames, limit)
+        );
+    }
+
+    private void rememberNames(BookSnapshot book) {
+        bookTitles.put(book.getId(), book.getTitle());
+        authorNames.put(book.getAuthorId(), book.getAuthorName());
+        categoryNames.put(book.getCategoryId(), book.getCategoryName());
+    }
+
+    private static long hourEpoch(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * 24 + time.getHour();
+    }
+
+    private static List<TrendingEntry> top(Map<Long, Long> counts, Map<Long, String> names, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> new TrendingEntry(entry.getKey(), names.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    private static class BucketRing {
+        private final long[] epochs;
+        private final Bucket[] buckets;
+
+        private BucketRing(int size) {
+            this.epochs = new long[size];
+            this.buckets = new Bucket[size];
+            for (int i = 0; i < size; i++) {
+                epochs[i] = Long.MIN_VALUE;
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private int size() {
+            return buckets.length;
+        }
+
+        // Reuses the slot of an expired epoch, so the ring never holds more than size buckets
+        private Bucket bucket(long epoch) {
+            int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+            if (epochs[slot] != epoch) {
+                epochs[slot] = epoch;
+                buckets[slot].clear();
+            }
+            return buckets[slot];
+        }
+
+        private Bucket merge(long currentEpoch, int window) {
+            Bucket total = new Bucket();
+            for (long epoch = currentEpoch - window + 1; epoch <= currentEpoch; epoch++) {
+                int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+                if (epochs[slot] == epoch) {
+                    total.merge(buckets[slot]);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static class Bucket {
+        private final Map<Long, Long> books = new HashMap<>();
+        private final Map<Long, Long> authors = new HashMap<>();
+        private final Map<Long, Long> categories = new HashMap<>();
+
+        private void add(Long bookId, Long authorId, Long categoryId, long count) {
+            books.merge(bookId, count, Long::sum);
+            authors.merge(authorId, count, Long::sum);
+            categories.merge(categoryId, count, Long::sum);
+        }
+
+        private void merge(Bucket other) {
+            other.books.forEach((id, count) -> books.merge(id, count, Long::sum));
+            other.authors.forEach((id, count) -> authors.merge(id, count, Long::sum));
+            other.categories.forEach((id, count) -> categories.merge(id, count, Long::sum));
+        }
+
+        private void clear() {
+            books.clear();
+            authors.clear();
+            categories.clear();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.library;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// Runs the application against a real PostgreSQL, the conditional updates and native queries depend on it.
+// One container is shared by every test class so the cached application context keeps a live database.
+// Scheduled jobs are off and Hibernate statistics on, so statement counts only reflect the code under test.
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.scheduling.enabled=false",
+        "jwt.secret=integration-test-secret-of-at-least-thirty-two-bytes",
+        "jwt.expiration=3600000"
+})
+public abstract class PostgresIntegrationTest {
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        postgres.start();
+    }
+}
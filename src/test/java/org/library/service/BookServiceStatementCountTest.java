@@ -0,0 +1,115 @@
+package org.library.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.PostgresIntegrationTest;
+import org.library.dto.book.BookResponse;
+import org.library.dto.common.CursorPageResponse;
+import org.library.entities.Author;
+import org.library.entities.Book;
+import org.library.entities.Category;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.library.repository.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Book list endpoints must cost a fixed number of statements, however many rows a page holds
+class BookServiceStatementCountTest extends PostgresIntegrationTest {
+    private static final int AUTHORS = 6;
+    private static final int CATEGORIES = 4;
+    private static final int BOOKS_PER_AUTHOR = 40;
+    private static final int RELEASE_YEAR = 1987;
+    private static final int[] PAGE_SIZES = {1, 10, 35};
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Author author;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String run = UUID.randomUUID().toString();
+
+        // Every page mixes several authors and categories, so lazy loading would show up as extra statements
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category created = new Category();
+            created.setName("Category " + i + " " + run);
+            categories.add(categoryRepository.save(created));
+        }
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            Author created = new Author();
+            created.setName("Author " + i + " " + run);
+            created = authorRepository.save(created);
+            for (int j = 0; j < BOOKS_PER_AUTHOR; j++) {
+                Book book = new Book();
+                book.setTitle("Book " + i + "-" + j + " " + run);
+                book.setReleaseYear(RELEASE_YEAR);
+                book.setAuthor(created);
+                book.setCategory(categories.get(j % CATEGORIES));
+                books.add(book);
+            }
+            author = created;
+        }
+        bookRepository.saveAll(books);
+        category = categories.get(0);
+    }
+
+    @Test
+    void findAllBooksRunsOneStatement() {
+        assertStatementsPerPage(1, size -> bookService.findAllBooks(null, size));
+    }
+
+    @Test
+    void findAvailableBooksRunsOneStatement() {
+        assertStatementsPerPage(1, size -> bookService.findAvailableBooks(null, size));
+    }
+
+    @Test
+    void findBooksByReleaseYearRunsOneStatement() {
+        assertStatementsPerPage(1, size -> bookService.findBooksByReleaseYear(RELEASE_YEAR, null, size));
+    }
+
+    // One statement checks that the author exists, one reads the page
+    @Test
+    void findBooksByAuthorRunsTwoStatements() {
+        assertStatementsPerPage(2, size -> bookService.findBooksByAuthor(author.getId(), null, size));
+    }
+
+    @Test
+    void findBooksByCategoryRunsTwoStatements() {
+        assertStatementsPerPage(2, size -> bookService.findBooksByCategory(category.getId(), null, size));
+    }
+
+    private void assertStatementsPerPage(long expected, IntFunction<CursorPageResponse<BookResponse>> listRequest) {
+        for (int size : PAGE_SIZES) {
+            statistics.clear();
+            CursorPageResponse<BookResponse> page = listRequest.apply(size);
+
+            assertEquals(size, page.getItems().size(), "rows on a page of " + size);
+            assertEquals(expected, statistics.getPrepareStatementCount(), "statements for a page of " + size);
+        }
+    }
+}
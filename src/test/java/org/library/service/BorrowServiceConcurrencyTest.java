@@ -0,0 +1,142 @@
+package org.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.PostgresIntegrationTest;
+import org.library.dto.borrow.BorrowRequest;
+import org.library.entities.Author;
+import org.library.entities.Book;
+import org.library.entities.Category;
+import org.library.entities.Role;
+import org.library.entities.User;
+import org.library.exception.ConflictException;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.library.repository.BorrowRecordRepository;
+import org.library.repository.CategoryRepository;
+import org.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BorrowServiceConcurrencyTest extends PostgresIntegrationTest {
+    private static final int BOOKS = 5;
+    private static final int BORROWERS = 16;
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private final List<User> borrowers = new ArrayList<>();
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+
+        Author author = new Author();
+        author.setName("Author " + run);
+        author = authorRepository.save(author);
+
+        Category category = new Category();
+        category.setName("Category " + run);
+        category = categoryRepository.save(category);
+
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i + " " + run);
+            book.setReleaseYear(2000);
+            book.setAuthor(author);
+            book.setCategory(category);
+            books.add(bookRepository.save(book));
+        }
+
+        for (int i = 0; i < BORROWERS; i++) {
+            User user = new User();
+            user.setName("Borrower " + i);
+            user.setEmail("borrower" + i + "-" + run + "@library.test");
+            user.setPassword("unused");
+            user.setActive(true);
+            user.setRole(Role.USER);
+            borrowers.add(userRepository.save(user));
+        }
+    }
+
+    @Test
+    void concurrentBorrowsOfOneBookLetExactlyOneBorrowerWin() throws Exception {
+        for (Book book : books) {
+            int successes = raceFor(book);
+
+            assertEquals(1, successes, "borrows that succeeded for " + book.getTitle());
+            long openRecords = borrowRecordRepository.findByBook(book).stream()
+                    .filter(borrowRecord -> !borrowRecord.isReturned())
+                    .count();
+            assertEquals(1, openRecords, "open borrow records for " + book.getTitle());
+            assertTrue(bookRepository.findById(book.getId()).orElseThrow().isBorrowed());
+        }
+    }
+
+    // Every borrower tries the same book at once, each from its own thread and security context
+    private int raceFor(Book book) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (User borrower : borrowers) {
+                attempts.add(executor.submit(borrowAs(borrower, book.getId(), start)));
+            }
+            start.countDown();
+
+            int successes = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(30, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+            return successes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<Boolean> borrowAs(User borrower, Long bookId, CountDownLatch start) {
+        return () -> {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    borrower.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+            try {
+                BorrowRequest request = new BorrowRequest();
+                request.setBookId(bookId);
+                start.await();
+                borrowService.borrowBook(request);
+                return true;
+            } catch (ConflictException e) {
+                return false;
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+}
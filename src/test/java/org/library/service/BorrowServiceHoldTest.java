@@ -0,0 +1,157 @@
+package org.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.PostgresIntegrationTest;
+import org.library.dto.borrow.BatchBorrowRequest;
+import org.library.dto.borrow.BorrowRequest;
+import org.library.dto.borrow.BorrowResponse;
+import org.library.dto.reservation.ReservationRequest;
+import org.library.dto.reservation.ReservationResponse;
+import org.library.entities.Author;
+import org.library.entities.Book;
+import org.library.entities.Category;
+import org.library.entities.ReservationStatus;
+import org.library.entities.Role;
+import org.library.entities.User;
+import org.library.exception.ConflictException;
+import org.library.repository.AuthorRepository;
+import org.library.repository.BookRepository;
+import org.library.repository.CategoryRepository;
+import org.library.repository.ReservationRepository;
+import org.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BorrowServiceHoldTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private User holder;
+    private User waiter;
+    private User other;
+    private Book heldBook;
+    private Book freeBook;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+
+        Author author = new Author();
+        author.setName("Author " + run);
+        author = authorRepository.save(author);
+
+        Category category = new Category();
+        category.setName("Category " + run);
+        category = categoryRepository.save(category);
+
+        heldBook = book("Held " + run, author, category);
+        freeBook = book("Free " + run, author, category);
+
+        holder = user("holder-" + run);
+        waiter = user("waiter-" + run);
+        other = user("other-" + run);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cartCollectsABookHeldForTheBorrower() {
+        ReservationResponse reservation = holdFor(waiter);
+
+        authenticate(waiter);
+        BatchBorrowRequest cart = new BatchBorrowRequest();
+        cart.setBookIds(List.of(heldBook.getId(), freeBook.getId()));
+        List<BorrowResponse> borrowed = borrowService.borrowBooks(cart);
+
+        assertEquals(2, borrowed.size());
+        assertEquals(ReservationStatus.FULFILLED,
+                reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+        assertTrue(bookRepository.findById(heldBook.getId()).orElseThrow().isBorrowed());
+        assertTrue(bookRepository.findById(freeBook.getId()).orElseThrow().isBorrowed());
+    }
+
+    @Test
+    void cartWithABookHeldForSomeoneElseIsRefused() {
+        ReservationResponse reservation = holdFor(waiter);
+
+        authenticate(other);
+        BatchBorrowRequest cart = new BatchBorrowRequest();
+        cart.setBookIds(List.of(heldBook.getId(), freeBook.getId()));
+        assertThrows(ConflictException.class, () -> borrowService.borrowBooks(cart));
+
+        assertEquals(ReservationStatus.READY,
+                reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+        assertFalse(bookRepository.findById(freeBook.getId()).orElseThrow().isBorrowed());
+    }
+
+    // The holder borrows the book, the waiter reserves it and the return sets it aside for the waiter
+    private ReservationResponse holdFor(User patron) {
+        authenticate(holder);
+        BorrowRequest borrow = new BorrowRequest();
+        borrow.setBookId(heldBook.getId());
+        BorrowResponse loan = borrowService.borrowBook(borrow);
+
+        authenticate(patron);
+        ReservationRequest reserve = new ReservationRequest();
+        reserve.setBookId(heldBook.getId());
+        ReservationResponse reservation = reservationService.reserveBook(reserve);
+
+        authenticate(holder);
+        borrowService.returnBook(loan.getId());
+        assertEquals(ReservationStatus.READY,
+                reservationRepository.findById(reservation.getId()).orElseThrow().getStatus());
+        return reservation;
+    }
+
+    private Book book(String title, Author author, Category category) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setReleaseYear(2000);
+        book.setAuthor(author);
+        book.setCategory(category);
+        return bookRepository.save(book);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@library.test");
+        user.setPassword("unused");
+        user.setActive(true);
+        user.setRole(Role.USER);
+        return userRepository.save(user);
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                user.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}